@@ -0,0 +1,76 @@
+package com.querydsl.benchmark;
+
+import com.querydsl.QuerydslApplication;
+import com.querydsl.seed.MemberDataGenerator;
+import com.querydsl.seed.SeedProperties;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 임베디드 H2(in-memory) 위에 JPA 계층만 띄우고 데이터를 채운다.
+ * memberCount/teamCount/teamSkew 는 jmh 파라미터로 바꿀 수 있다.
+ * teamSkew 는 팀 배정 Zipf 지수(0 이면 균등 분포), 클수록 teamA 에 몰린다.
+ */
+@State(Scope.Benchmark)
+public class JpaBenchmarkState {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int memberCount;
+
+    @Param({"10"})
+    public int teamCount;
+
+    @Param({"0.0", "1.5"})
+    public double teamSkew;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = start();
+        seed();
+    }
+
+    //빈 스키마로 띄운다. extraArgs 로 설정을 덮어쓸 수 있다 (예: --spring.jpa.properties.hibernate.jdbc.batch_size=1)
+    static ConfigurableApplicationContext start(String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=bench",
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--logging.level.org.hibernate.type=warn"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    //JPA persist 대신 MemberDataGenerator 로 JDBC 일괄 insert
+    private void seed() {
+        SeedProperties spec = new SeedProperties();
+        spec.setMembers(memberCount);
+        spec.setTeams(teamCount);
+        spec.setTeamSkew(teamSkew);
+        getBean(MemberDataGenerator.class).generate(spec);
+    }
+}
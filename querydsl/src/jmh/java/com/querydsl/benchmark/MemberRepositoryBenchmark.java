@@ -0,0 +1,140 @@
+package com.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberTeamDto;
+import com.querydsl.dto.QMemberTeamDto;
+import com.querydsl.entity.Member;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.repository.MemberJpaRepository;
+import com.querydsl.repository.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.querydsl.entity.QMember.member;
+import static com.querydsl.entity.QTeam.team;
+
+/**
+ * 리포지토리 조회 경로 비교
+ * - searchByBuilder vs search vs searchTemplated (BooleanBuilder, where 다중 파라미터, MemberRepository 의 JPQL 템플릿 캐시)
+ * - searchPageSimple(fetchResults) vs searchPage(count 쿼리 분리) vs searchPageParallel(동시 실행)
+ * - JPQL 직렬화 비용, DTO/Tuple/엔티티 프로젝션 비용
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberRepositoryBenchmark {
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberRepository memberRepository;
+    private JPAQueryFactory queryFactory;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private final Pageable pageable = PageRequest.of(10, 20);
+
+    @Setup
+    public void setUp(JpaBenchmarkState state) {
+        memberJpaRepository = state.getBean(MemberJpaRepository.class);
+        memberRepository = state.getBean(MemberRepository.class);
+        queryFactory = state.getBean(JPAQueryFactory.class);
+
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberJpaRepository.search(condition);
+    }
+
+    //조건 조합별 JPQL 캐시 + 파라미터 바인딩만, search 와 비교
+    @Benchmark
+    public List<MemberTeamDto> searchTemplated() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPage() {
+        return memberRepository.searchPage(condition, pageable);
+    }
+
+    //content/count 동시 실행, searchPage 와 지연시간 비교
+    @Benchmark
+    public Page<MemberTeamDto> searchPageParallel() {
+        return memberRepository.searchPageParallel(condition, pageable);
+    }
+
+    @Benchmark
+    public List<Member> findByUsername() {
+        return memberJpaRepository.findByUsername("member100");
+    }
+
+    //DB 호출 없이 Querydsl 식 -> JPQL 문자열 변환 비용만
+    @Benchmark
+    public String serializeJpql() {
+        return dtoQuery().toString();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> projectionDto() {
+        return dtoQuery().limit(100).fetch();
+    }
+
+    @Benchmark
+    public List<Tuple> projectionTuple() {
+        return queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"), member.age.between(20, 40))
+                .limit(100)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<Member> projectionEntity() {
+        return queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA"), member.age.between(20, 40))
+                .limit(100)
+                .fetch();
+    }
+
+    private JPAQuery<MemberTeamDto> dtoQuery() {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age
+                        , team.id.as("teamId")
+                        , team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"), member.age.between(20, 40));
+    }
+}
@@ -0,0 +1,85 @@
+package com.querydsl.benchmark;
+
+import com.querydsl.entity.Member;
+import com.querydsl.entity.Team;
+import com.querydsl.repository.MemberJpaRepository;
+import com.querydsl.repository.TeamRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * saveAll 로 회원 100만 건 저장 (초당 행 수).
+ * jdbcBatchSize=1 이면 배치 없이 한 건씩 insert, 50 이면 application.yml 설정과 같다.
+ * 한 번에 CHUNK 건씩 나눠 호출해서 트랜잭션 하나가 너무 커지지 않게 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberWriteBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int CHUNK = 10_000;
+
+    @Param({"1", "50"})
+    public int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private JdbcTemplate jdbcTemplate;
+    private Team team;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkState.start("--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        team = context.getBean(TeamRepository.class).save(new Team("writeTeam"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //매 반복마다 빈 테이블에서 시작
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("truncate table member");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long saveAll() {
+        long saved = 0;
+        for (int offset = 0; offset < ROWS; offset += CHUNK) {
+            saved += memberJpaRepository.saveAll(chunk(offset));
+        }
+        return saved;
+    }
+
+    //changeTeam 을 쓰면 team.members 에 100만 건이 쌓이므로 연관관계만 건다
+    private List<Member> chunk(int offset) {
+        List<Member> members = new ArrayList<>(CHUNK);
+        for (int i = offset; i < offset + CHUNK; i++) {
+            Member member = new Member("member" + i, i % 100);
+            member.setTeam(team);
+            members.add(member);
+        }
+        return members;
+    }
+}
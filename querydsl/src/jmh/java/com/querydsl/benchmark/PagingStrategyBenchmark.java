@@ -0,0 +1,55 @@
+package com.querydsl.benchmark;
+
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberTeamDto;
+import com.querydsl.repository.MemberRepository;
+import com.querydsl.repository.PagingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * offset 이 커질수록 OFFSET(한번에 조인 후 offset) 과 DEFERRED_JOIN(id 먼저) 비교
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PagingStrategyBenchmark {
+
+    @Param({"0", "100", "1000", "10000"})
+    public int page;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private MemberRepository memberRepository;
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private Pageable pageable;
+
+    @Setup
+    public void setUp(JpaBenchmarkState state) {
+        memberRepository = state.getBean(MemberRepository.class);
+        condition.setAgeGoe(10);
+        pageable = PageRequest.of(page, pageSize);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> offset() {
+        return memberRepository.searchPage(condition, pageable, PagingStrategy.OFFSET);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> deferredJoin() {
+        return memberRepository.searchPage(condition, pageable, PagingStrategy.DEFERRED_JOIN);
+    }
+}
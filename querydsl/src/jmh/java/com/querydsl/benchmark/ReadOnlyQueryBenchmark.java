@@ -0,0 +1,71 @@
+package com.querydsl.benchmark;
+
+import com.querydsl.entity.Member;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.querydsl.entity.QMember.member;
+
+/**
+ * 엔티티 조회(findAll 류) 시 영속성 컨텍스트 비용 비교. gc 프로파일러의 gc.alloc.rate.norm 으로 힙 사용량을 본다.
+ * - readWrite: 일반 트랜잭션, 엔티티마다 스냅샷을 만들고 커밋 때 dirty checking
+ * - readOnlyTx: @Transactional(readOnly = true) 와 같음, FlushMode.MANUAL + 기본 read-only 세션
+ * - readOnlyHint: 쓰기 트랜잭션 안에서 org.hibernate.readOnly 힌트만 (MemberRepository.findAllReadOnly 방식)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyQueryBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"readWrite", "readOnlyTx", "readOnlyHint"})
+    public String mode;
+
+    private JPAQueryFactory queryFactory;
+    private TransactionTemplate tx;
+
+    @Setup
+    public void setUp(JpaBenchmarkState state) {
+        queryFactory = state.getBean(JPAQueryFactory.class);
+        tx = new TransactionTemplate(state.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly(mode.equals("readOnlyTx"));
+    }
+
+    @Benchmark
+    public int loadEntities() {
+        return tx.execute(status -> {
+            JPAQuery<Member> query = queryFactory.selectFrom(member)
+                    .where(member.id.loe(ROWS));
+            if (mode.equals("readOnlyHint")) {
+                query.setHint(QueryHints.READ_ONLY, true);
+            }
+            return query.fetch().size();
+        });
+    }
+
+    @Benchmark
+    public int findByUsername() {
+        return tx.execute(status -> {
+            JPAQuery<Member> query = queryFactory.selectFrom(member)
+                    .where(member.username.eq("member100"));
+            if (mode.equals("readOnlyHint")) {
+                query.setHint(QueryHints.READ_ONLY, true);
+            }
+            return query.fetch().size();
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.querydsl.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.querydsl.dto.MemberColumnarDto;
+import com.querydsl.dto.MemberTeamDto;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /v1/members 응답 포맷별 직렬화 비용(ns/op, op 당 rows 행)과 크기.
+ * 행 당 바이트 수는 보조 카운터 bytesPerRow 로 결과에 같이 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseFormatBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"5"})
+    public int teams;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+    private List<MemberTeamDto> content;
+
+    //단일 스레드 기준 (EVENTS 는 스레드별 값을 더한다), 이터레이션 동안 모은 바이트/행으로 나눈다
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        private long bytes;
+        private long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            rows = 0;
+        }
+
+        public double bytesPerRow() {
+            return rows == 0 ? 0 : (double) bytes / rows;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        content = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long team = i % teams;
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, team, "team" + team));
+        }
+    }
+
+    @Benchmark
+    public byte[] rowJson(Size size) throws JsonProcessingException {
+        return record(size, json.writeValueAsBytes(content));
+    }
+
+    @Benchmark
+    public byte[] columnarJson(Size size) throws JsonProcessingException {
+        return record(size, json.writeValueAsBytes(new MemberColumnarDto(content)));
+    }
+
+    @Benchmark
+    public byte[] columnarCbor(Size size) throws JsonProcessingException {
+        return record(size, cbor.writeValueAsBytes(new MemberColumnarDto(content)));
+    }
+
+    @Benchmark
+    public byte[] columnarSmile(Size size) throws JsonProcessingException {
+        return record(size, smile.writeValueAsBytes(new MemberColumnarDto(content)));
+    }
+
+    private byte[] record(Size size, byte[] bytes) {
+        size.bytes += bytes.length;
+        size.rows += rows;
+        return bytes;
+    }
+}
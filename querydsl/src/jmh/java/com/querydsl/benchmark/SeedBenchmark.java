@@ -0,0 +1,78 @@
+package com.querydsl.benchmark;
+
+import com.querydsl.dto.BulkProgress;
+import com.querydsl.seed.MemberDataGenerator;
+import com.querydsl.seed.SeedProperties;
+import com.querydsl.seed.SeedSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 시작 시 초기 데이터 준비 시간: 생성(MemberDataGenerator) vs 스냅샷 복원(SeedSnapshot).
+ * 매 호출 전에 테이블을 비운다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SeedBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int memberCount;
+
+    private ConfigurableApplicationContext context;
+    private SeedProperties spec;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = JpaBenchmarkState.start();
+        spec = new SeedProperties();
+        spec.setMembers(memberCount);
+        spec.setTeams(100);
+        spec.setTeamSkew(1.0);
+        spec.setAgeDistribution(SeedProperties.AgeDistribution.NORMAL);
+        file = Files.createTempFile("seed", ".snapshot");
+        context.getBean(MemberDataGenerator.class).generate(spec);
+        context.getBean(SeedSnapshot.class).save(file, spec.fingerprint());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("set referential_integrity false");
+        jdbcTemplate.execute("truncate table member");
+        jdbcTemplate.execute("truncate table team");
+        jdbcTemplate.execute("set referential_integrity true");
+    }
+
+    @Benchmark
+    public BulkProgress generate() {
+        return context.getBean(MemberDataGenerator.class).generate(spec);
+    }
+
+    @Benchmark
+    public BulkProgress restore() throws IOException {
+        return context.getBean(SeedSnapshot.class).restore(file, spec.fingerprint()).orElseThrow();
+    }
+}
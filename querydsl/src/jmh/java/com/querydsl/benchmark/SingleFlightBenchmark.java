@@ -0,0 +1,99 @@
+package com.querydsl.benchmark;
+
+import com.querydsl.config.SqlStatementInspector;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberSearchKey;
+import com.querydsl.dto.MemberTeamDto;
+import com.querydsl.repository.MemberJpaRepository;
+import com.querydsl.repository.MemberSearchSingleFlight;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 같은 조건의 /v1/members 검색이 몰릴 때(32 스레드) DB 로 나가는 쿼리 수 비교.
+ * 보조 카운터 sql 은 초당 실행된 SQL 수, search 처리량으로 나누면 요청당 SQL 이다
+ * (1 보다 작으면 그만큼 DB QPS 가 줄어든 것).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+public class SingleFlightBenchmark {
+
+    @Param({"false", "true"})
+    public boolean coalesce;
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchSingleFlight singleFlight;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private final MemberSearchKey key;
+
+    public SingleFlightBenchmark() {
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+        key = MemberSearchKey.of(condition);
+    }
+
+    //벤치마크 스레드마다 자기 스레드에서 나간 SQL 만 센다 (OPERATIONS 는 스레드별 값을 더해 초당 값으로 보여준다)
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Statements {
+        public long sql;
+
+        private SqlStatementInspector inspector;
+        private Consumer<String> counter;
+
+        @Setup
+        public void setUp(JpaBenchmarkState state) {
+            Thread owner = Thread.currentThread();
+            inspector = state.getBean(SqlStatementInspector.class);
+            counter = statement -> {
+                if (Thread.currentThread() == owner) {
+                    sql++;
+                }
+            };
+            inspector.addListener(counter);
+        }
+
+        //이터레이션마다 0 부터 센다
+        @Setup(Level.Iteration)
+        public void reset() {
+            sql = 0;
+        }
+
+        @TearDown
+        public void tearDown() {
+            inspector.removeListener(counter);
+        }
+    }
+
+    @Setup
+    public void setUp(JpaBenchmarkState state) {
+        memberJpaRepository = state.getBean(MemberJpaRepository.class);
+        singleFlight = state.getBean(MemberSearchSingleFlight.class);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search(Statements statements) {
+        if (coalesce) {
+            return singleFlight.execute("rows", key, () -> memberJpaRepository.search(condition));
+        }
+        return memberJpaRepository.search(condition);
+    }
+}
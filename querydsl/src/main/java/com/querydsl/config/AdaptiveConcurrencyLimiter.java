@@ -0,0 +1,98 @@
+package com.querydsl.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 실행 수 제한 (AIMD). 관측한 응답 시간으로 limit 을 움직인다.
+ * - latencyThreshold 안에 끝나고 limit 의 절반 이상을 쓰고 있으면 +1
+ * - 오래 걸리거나 실패하면 x0.9 (minLimit ~ maxLimit)
+ * limit 이 차 있으면 maxQueue 개까지 queueTimeout 동안 기다리고, 그래도 자리가 없으면 거절한다.
+ * 메트릭: member.search.limit / in-flight / queued, member.search.rejected {budget=이름}
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final SearchLimitProperties.Budget budget;
+    private final long thresholdNanos;
+    private final long queueTimeoutNanos;
+    private final Counter rejected;
+
+    //this 로 보호
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    public AdaptiveConcurrencyLimiter(String name, SearchLimitProperties.Budget budget, MeterRegistry registry) {
+        if (budget.getMinLimit() < 1 || budget.getMaxLimit() < budget.getMinLimit()) {
+            throw new IllegalArgumentException("invalid limits for " + name + ": min=" + budget.getMinLimit()
+                    + ", max=" + budget.getMaxLimit());
+        }
+        this.budget = budget;
+        this.thresholdNanos = budget.getLatencyThreshold().toNanos();
+        this.queueTimeoutNanos = budget.getQueueTimeout().toNanos();
+        this.limit = Math.max(budget.getMinLimit(), Math.min(budget.getMaxLimit(), budget.getInitialLimit()));
+        this.rejected = Counter.builder("member.search.rejected").tag("budget", name).register(registry);
+        Gauge.builder("member.search.limit", this, AdaptiveConcurrencyLimiter::getLimit).tag("budget", name).register(registry);
+        Gauge.builder("member.search.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight).tag("budget", name).register(registry);
+        Gauge.builder("member.search.queued", this, AdaptiveConcurrencyLimiter::getQueued).tag("budget", name).register(registry);
+    }
+
+    //자리를 얻으면 true, 반드시 release 로 돌려줘야 한다
+    public synchronized boolean tryAcquire() throws InterruptedException {
+        if (inFlight < (int) limit) {
+            inFlight++;
+            return true;
+        }
+        if (queued >= budget.getMaxQueue()) {
+            rejected.increment();
+            return false;
+        }
+        long deadline = System.nanoTime() + queueTimeoutNanos;
+        queued++;
+        try {
+            while (inFlight >= (int) limit) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    rejected.increment();
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            queued--;
+        }
+    }
+
+    public synchronized void release(long latencyNanos, boolean failed) {
+        int used = inFlight--;
+        if (failed || latencyNanos > thresholdNanos) {
+            limit = Math.max(budget.getMinLimit(), limit * BACKOFF_RATIO);
+        } else if (used * 2 >= limit) {
+            limit = Math.min(budget.getMaxLimit(), limit + 1);
+        }
+        notifyAll();
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    public double rejectedCount() {
+        return rejected.count();
+    }
+}
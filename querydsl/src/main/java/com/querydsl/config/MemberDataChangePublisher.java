@@ -0,0 +1,158 @@
+package com.querydsl.config;
+
+import com.querydsl.entity.Member;
+import com.querydsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * member/team 변경을 커밋 이후 MemberDataChangedEvent 로 알린다.
+ * - 엔티티 변경: Hibernate post-commit 리스너
+ * - 벌크 update/delete: 영속성 컨텍스트를 거치지 않으므로 실행되는 SQL 을 보고 판단
+ *   (엔티티 flush 로 나가는 update/delete 는 pre/post 이벤트 사이에서 실행되므로 벌크로 보지 않는다,
+ *   post 이벤트 없이 실패해도 트랜잭션이 끝나면 표시를 지운다)
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberDataChangePublisher implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final Pattern BULK_DML = Pattern.compile(
+            "^\\s*(update|delete\\s+from)\\s+(member|team)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final EntityManagerFactory emf;
+    private final SqlStatementInspector statementInspector;
+    private final ApplicationEventPublisher eventPublisher;
+    //엔티티 update/delete 액션이 실행 중인지 (그 사이에 준비되는 SQL 은 벌크가 아니다)
+    private final ThreadLocal<Boolean> entityDml = new ThreadLocal<>();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        registry.appendListeners(EventType.PRE_UPDATE, (PreUpdateEventListener) event -> entityDmlStart(event.getSession()));
+        registry.appendListeners(EventType.PRE_DELETE, (PreDeleteEventListener) event -> entityDmlStart(event.getSession()));
+        EntityDmlEnd end = new EntityDmlEnd();
+        registry.appendListeners(EventType.POST_UPDATE, end);
+        registry.appendListeners(EventType.POST_DELETE, end);
+        statementInspector.addListener(this::inspect);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(MemberDataChangedEvent.Change.INSERT, event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(MemberDataChangedEvent.Change.UPDATE, event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(MemberDataChangedEvent.Change.DELETE, event.getEntity());
+    }
+
+    //커밋이 실패하면 바뀐 것이 없다
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return true;
+    }
+
+    private void publish(MemberDataChangedEvent.Change change, Object entity) {
+        if (entity instanceof Member || entity instanceof Team) {
+            eventPublisher.publishEvent(MemberDataChangedEvent.entityChanged(change, entity));
+        }
+    }
+
+    //액션이 post 이벤트 전에 실패하면 표시가 남아 같은 스레드의 다음 벌크 SQL 을 놓치므로
+    //트랜잭션이 끝날 때(커밋/롤백 모두) 한 번 더 지운다
+    private boolean entityDmlStart(EventSource session) {
+        entityDml.set(Boolean.TRUE);
+        session.getActionQueue().registerProcess(
+                (AfterTransactionCompletionProcess) (success, completed) -> entityDml.remove());
+        return false;
+    }
+
+    private void inspect(String sql) {
+        Matcher matcher = BULK_DML.matcher(sql);
+        if (!matcher.find()) {
+            return;
+        }
+        //배치면 같은 SQL 이 한 번만 준비되므로 여기서 바로 해제한다
+        if (entityDml.get() != null) {
+            entityDml.remove();
+            return;
+        }
+        MemberDataChangedEvent event = new MemberDataChangedEvent(
+                matcher.group(2).equalsIgnoreCase("team") ? Team.class.getSimpleName() : Member.class.getSimpleName(), true);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    private class EntityDmlEnd implements PostUpdateEventListener, PostDeleteEventListener {
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            entityDml.remove();
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            entityDml.remove();
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.querydsl.config;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * member/team 테이블 데이터가 바뀌었을 때(커밋 이후) 발행되는 이벤트.
+ * bulk 는 update/delete 벌크 쿼리로 바뀐 경우라 어떤 행이 바뀌었는지 모른다.
+ * 엔티티 단위 변경이면 change 와 커밋된 엔티티가 같이 온다.
+ */
+@Getter
+@ToString(exclude = "entity")
+public class MemberDataChangedEvent {
+
+    public enum Change { INSERT, UPDATE, DELETE }
+
+    private final String entityName;
+    private final boolean bulk;
+    private final Change change;
+    private final Object entity;
+
+    public MemberDataChangedEvent(String entityName, boolean bulk) {
+        this(entityName, bulk, null, null);
+    }
+
+    private MemberDataChangedEvent(String entityName, boolean bulk, Change change, Object entity) {
+        this.entityName = entityName;
+        this.bulk = bulk;
+        this.change = change;
+        this.entity = entity;
+    }
+
+    public static MemberDataChangedEvent entityChanged(Change change, Object entity) {
+        return new MemberDataChangedEvent(entity.getClass().getSimpleName(), false, change, entity);
+    }
+}
@@ -0,0 +1,60 @@
+package com.querydsl.config;
+
+import com.querydsl.dto.MemberSearchKey;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * member/team 데이터 버전. 엔티티 변경/벌크 쿼리가 커밋될 때마다 증가한다.
+ * 재시작 후 이전 ETag 와 겹치지 않도록 시작 시각에서 출발한다. (프로세스 단위)
+ */
+@Component
+public class MemberDataVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    //DB 를 보지 않고 버전 + 정규화된 검색 조건(SHA-256)으로 ETag 를 만든다
+    public String etag(MemberSearchKey key, String variant) {
+        return "\"" + Long.toHexString(current()) + "-" + digest(key, variant) + "\"";
+    }
+
+    //필드마다 "길이:값", null 은 "-" 로 이어 붙여 필드 경계가 섞이지 않게 한다
+    private static String digest(MemberSearchKey key, String variant) {
+        StringBuilder canonical = new StringBuilder();
+        for (Object field : Arrays.asList(key.getUsername(), key.getTeamName(), key.getAgeGoe(), key.getAgeLoe(),
+                key.getPage(), key.getSize(), key.getSort(), variant)) {
+            if (field == null) {
+                canonical.append('-');
+            } else {
+                String value = field.toString();
+                canonical.append(value.length()).append(':').append(value);
+            }
+        }
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.querydsl.config;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * 스레드별로 실행된 SQL 수와 로딩된 엔티티 수를 센다.
+ * SQL 은 SqlStatementInspector 리스너, 엔티티는 Hibernate Interceptor#onLoad 로 받는다.
+ */
+public class QueryCounter extends EmptyInterceptor {
+
+    private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[2]);
+
+    public void onStatement(String sql) {
+        COUNTS.get()[0]++;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        COUNTS.get()[1]++;
+        return false;
+    }
+
+    public long statements() {
+        return COUNTS.get()[0];
+    }
+
+    public long entities() {
+        return COUNTS.get()[1];
+    }
+}
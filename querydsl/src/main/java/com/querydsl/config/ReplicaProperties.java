@@ -0,0 +1,18 @@
+package com.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("app.datasource.replica")
+public class ReplicaProperties {
+
+    private String url;
+    private String username;
+    private String password;
+    //쓰기 후 이 시간 동안은 읽기도 primary 로 (replica 복제 지연 허용치)
+    private Duration maxLag = Duration.ofSeconds(1);
+}
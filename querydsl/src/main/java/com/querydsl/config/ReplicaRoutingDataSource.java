@@ -0,0 +1,173 @@
+package com.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 읽기 전용 트랜잭션은 replica, 나머지는 primary 로 보낸다.
+ * - 마지막 쓰기 이후 maxLag 이내의 읽기는 아직 복제되지 않았을 수 있으므로 primary
+ *   (쓰기 시각은 primary 에서 DML 이 실행된 트랜잭션의 커밋 시점, autocommit 이면 실행 시점)
+ * - replica 커넥션을 얻지 못하면 primary 로 대체
+ * 트랜잭션 속성이 정해진 뒤에 커넥션을 얻도록 LazyConnectionDataSourceProxy 로 감싸서 써야 한다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagMillis;
+    private final Clock clock;
+    private final AtomicLong lastWriteMillis = new AtomicLong(Long.MIN_VALUE / 2);
+    //트랜잭션당 afterCommit 을 한 번만 등록하기 위한 리소스 키
+    private final Object writeMarker = new Object();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag) {
+        this(primary, replica, maxLag, Clock.systemUTC());
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag, Clock clock) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMillis = maxLag.toMillis();
+        this.clock = clock;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return clock.millis() - lastWriteMillis.get() < maxLagMillis ? Route.PRIMARY : Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA) {
+            return trackWrites(primary.getConnection());
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            log.warn("replica unavailable, falling back to primary: {}", e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA) {
+            return trackWrites(primary.getConnection(username, password));
+        }
+        try {
+            return replica.getConnection(username, password);
+        } catch (SQLException e) {
+            log.warn("replica unavailable, falling back to primary: {}", e.getMessage());
+            return primary.getConnection(username, password);
+        }
+    }
+
+    private void onWrite(Connection connection) throws SQLException {
+        if (connection.getAutoCommit() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            lastWriteMillis.set(clock.millis());
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(writeMarker)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(writeMarker, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWriteMillis.set(clock.millis());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writeMarker);
+            }
+        });
+    }
+
+    //primary 커넥션에서 나온 Statement 의 DML 실행을 onWrite 로 알린다
+    private Connection trackWrites(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(proxy, connection, method, args);
+                    if (result instanceof CallableStatement) {
+                        return trackStatement(connection, (Statement) result, CallableStatement.class);
+                    }
+                    if (result instanceof PreparedStatement) {
+                        return trackStatement(connection, (Statement) result, PreparedStatement.class);
+                    }
+                    if (result instanceof Statement) {
+                        return trackStatement(connection, (Statement) result, Statement.class);
+                    }
+                    return result;
+                });
+    }
+
+    private Object trackStatement(Connection connection, Statement statement, Class<? extends Statement> type) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = invoke(proxy, statement, method, args);
+                    if (isWrite(method, result)) {
+                        onWrite(connection);
+                    }
+                    return result;
+                });
+    }
+
+    //execute() 는 결과가 ResultSet 이 아닐 때(false)만 쓰기
+    private static boolean isWrite(Method method, Object result) {
+        switch (method.getName()) {
+            case "executeUpdate":
+            case "executeLargeUpdate":
+            case "executeBatch":
+            case "executeLargeBatch":
+                return true;
+            case "execute":
+                return Boolean.FALSE.equals(result);
+            default:
+                return false;
+        }
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.querydsl.config;
+
+import com.querydsl.dto.KeysetSlice;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.Session;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 리포지토리 메서드별 실행 시간(p50/p95/p99), SQL 수, 조회 행 수, 로딩 엔티티 수,
+ * 영속성 컨텍스트 크기를 기록한다. app.metrics.repository.enabled=true 일 때만 등록된다.
+ */
+@Aspect
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final QueryCounter queryCounter;
+    private final EntityManagerFactory emf;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.querydsl.repository.MemberJpaRepository.*(..))" +
+            " || execution(public * com.querydsl.repository.MemberRepositoryImpl.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        Meters m = meters.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(), this::register);
+        long statements = queryCounter.statements();
+        long entities = queryCounter.entities();
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } finally {
+            m.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            m.statements.record(queryCounter.statements() - statements);
+            m.entities.record(queryCounter.entities() - entities);
+            if (result != null) {
+                m.rows.record(rowsOf(result));
+            }
+            int contextSize = persistenceContextSize();
+            if (contextSize >= 0) {
+                m.contextSize.record(contextSize);
+            }
+        }
+    }
+
+    private Meters register(Method method) {
+        String clazz = method.getDeclaringClass().getSimpleName();
+        String name = method.getName();
+        return new Meters(
+                Timer.builder("repository.method")
+                        .tags("class", clazz, "method", name)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry),
+                summary("repository.method.statements", clazz, name),
+                summary("repository.method.rows", clazz, name),
+                summary("repository.method.entities", clazz, name),
+                summary("repository.method.persistence-context", clazz, name));
+    }
+
+    private DistributionSummary summary(String meter, String clazz, String method) {
+        return DistributionSummary.builder(meter)
+                .tags("class", clazz, "method", method)
+                .register(registry);
+    }
+
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof KeysetSlice) {
+            return ((KeysetSlice<?>) result).getContent().size();
+        }
+        return 1;
+    }
+
+    //트랜잭션이나 OSIV 로 바인딩된 EntityManager 가 있을 때만 측정
+    private int persistenceContextSize() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if (holder == null || !holder.getEntityManager().isOpen()) {
+            return -1;
+        }
+        return holder.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+    @RequiredArgsConstructor
+    private static class Meters {
+        private final Timer timer;
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+        private final DistributionSummary entities;
+        private final DistributionSummary contextSize;
+    }
+}
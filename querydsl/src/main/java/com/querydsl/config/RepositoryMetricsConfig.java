@@ -0,0 +1,34 @@
+package com.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+//꺼져 있으면 aspect/interceptor 자체가 등록되지 않아 오버헤드가 없다
+@Configuration
+@ConditionalOnProperty(prefix = "app.metrics.repository", name = "enabled", havingValue = "true")
+public class RepositoryMetricsConfig {
+
+    @Bean
+    QueryCounter queryCounter(SqlStatementInspector statementInspector) {
+        QueryCounter queryCounter = new QueryCounter();
+        statementInspector.addListener(queryCounter::onStatement);
+        return queryCounter;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer queryCounterCustomizer(QueryCounter queryCounter) {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, queryCounter);
+    }
+
+    @Bean
+    RepositoryMetricsAspect repositoryMetricsAspect(MeterRegistry registry, QueryCounter queryCounter,
+                                                    EntityManagerFactory emf) {
+        return new RepositoryMetricsAspect(registry, queryCounter, emf);
+    }
+}
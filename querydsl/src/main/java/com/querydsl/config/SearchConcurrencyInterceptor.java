@@ -0,0 +1,76 @@
+package com.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * 검색 요청을 조건 모양으로 나눠 각 budget 의 limiter 를 통과시킨다.
+ * 자리를 못 얻으면 컨트롤러까지 가지 않고 503 + Retry-After.
+ */
+@RequiredArgsConstructor
+public class SearchConcurrencyInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT = SearchConcurrencyInterceptor.class.getName() + ".permit";
+
+    private final AdaptiveConcurrencyLimiter cheap;
+    private final AdaptiveConcurrencyLimiter expensive;
+    private final Duration retryAfter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        AdaptiveConcurrencyLimiter limiter = limiterFor(request);
+        boolean acquired;
+        try {
+            acquired = limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "too many concurrent searches");
+            return false;
+        }
+        request.setAttribute(PERMIT, new Permit(limiter, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Permit permit = (Permit) request.getAttribute(PERMIT);
+        if (permit == null) {
+            return;
+        }
+        request.removeAttribute(PERMIT);
+        boolean failed = ex != null || response.getStatus() >= 500;
+        permit.limiter.release(System.nanoTime() - permit.startNanos, failed);
+    }
+
+    //회원명/팀명 조건이 있으면 인덱스로 좁혀지는 검색, 나머지는 스캔에 가까운 검색 (리포지토리 조건과 같은 판단)
+    AdaptiveConcurrencyLimiter limiterFor(HttpServletRequest request) {
+        if (!isEmpty(request.getParameter("username")) || StringUtils.hasText(request.getParameter("teamName"))) {
+            return cheap;
+        }
+        return expensive;
+    }
+
+    @RequiredArgsConstructor
+    private static class Permit {
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long startNanos;
+    }
+}
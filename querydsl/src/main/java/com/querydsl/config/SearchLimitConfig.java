@@ -0,0 +1,35 @@
+package com.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//스트리밍(/v1/members/stream)은 응답 시간이 결과 건수에 비례해 latency 신호로 쓸 수 없어 제외
+@Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(SearchLimitProperties.class)
+@ConditionalOnProperty(prefix = "app.search.limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SearchLimitConfig implements WebMvcConfigurer {
+
+    private final SearchLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Bean
+    SearchConcurrencyInterceptor searchConcurrencyInterceptor() {
+        return new SearchConcurrencyInterceptor(
+                new AdaptiveConcurrencyLimiter("cheap", properties.getCheap(), meterRegistry),
+                new AdaptiveConcurrencyLimiter("expensive", properties.getExpensive(), meterRegistry),
+                properties.getRetryAfter());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(searchConcurrencyInterceptor())
+                .addPathPatterns("/v1/members", "/v1/members/slice", "/v2/members", "/v3/members");
+    }
+}
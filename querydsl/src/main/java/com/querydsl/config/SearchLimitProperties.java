@@ -0,0 +1,45 @@
+package com.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("app.search.limit")
+public class SearchLimitProperties {
+
+    private boolean enabled = true;
+    //거절 응답의 Retry-After
+    private Duration retryAfter = Duration.ofSeconds(1);
+    //회원명/팀명 조건이 있는 검색 (인덱스를 타서 짧게 끝난다)
+    private Budget cheap = new Budget(50, 10, 400, Duration.ofMillis(100), 100, Duration.ofMillis(50));
+    //조건이 없거나 나이 범위만 있는 검색 (전체/대량 스캔)
+    private Budget expensive = new Budget(8, 1, 32, Duration.ofMillis(500), 16, Duration.ofMillis(200));
+
+    @Getter @Setter
+    public static class Budget {
+
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+        //이보다 오래 걸리면 limit 을 줄인다
+        private Duration latencyThreshold;
+        //limit 이 차 있을 때 기다릴 수 있는 요청 수와 최대 대기 시간, 넘으면 바로 503
+        private int maxQueue;
+        private Duration queueTimeout;
+
+        public Budget() {
+        }
+
+        Budget(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, int maxQueue, Duration queueTimeout) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyThreshold = latencyThreshold;
+            this.maxQueue = maxQueue;
+            this.queueTimeout = queueTimeout;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.querydsl.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Hibernate 가 실행하는 모든 SQL 을 등록된 리스너에게 넘겨준다. SQL 은 바꾸지 않는다.
+ * StatementInspector 는 세션팩토리당 하나만 설정할 수 있어서 여기서 나눠준다.
+ */
+@Component
+public class SqlStatementInspector implements StatementInspector {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<String> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        for (Consumer<String> listener : listeners) {
+            listener.accept(sql);
+        }
+        return sql;
+    }
+}
@@ -1,45 +1,112 @@
 package com.querydsl.controller;
 
-import com.querydsl.entity.Member;
-import com.querydsl.entity.Team;
+import com.querydsl.seed.MemberDataGenerator;
+import com.querydsl.seed.SeedProperties;
+import com.querydsl.seed.SeedSnapshot;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * 로컬 초기 데이터. 크기/분포는 app.seed.* (SeedProperties), app.seed.snapshot 이 있으면 스냅샷에서 복원한다.
+ * 스키마가 만들어진 뒤(ApplicationStartedEvent) 채우고, async 면 다 채울 때까지 health 가 OUT_OF_SERVICE 이다.
+ * async 가 아니면 채우다 실패했을 때 애플리케이션 시작이 실패한다.
+ * readiness 그룹에 포함돼 있어서(application.yml) 그동안 /actuator/health/readiness 도 트래픽을 받지 않는다고 답한다.
+ */
+@Slf4j
 @Profile("local")
 @Component
 @RequiredArgsConstructor
-public class InitMember {
+@EnableConfigurationProperties(SeedProperties.class)
+public class InitMember implements HealthIndicator {
 
-    private final InitMemberService initMemberService;
+    private final MemberDataGenerator generator;
+    private final SeedSnapshot snapshot;
+    private final SeedProperties properties;
+    private final CompletableFuture<Void> seeded = new CompletableFuture<>();
 
-    @PostConstruct // 스프링 라이프사이클 설정으로  @transactional과 같이 사용 불가하기 때문에
-                                //init 메서드로 따로 분리해서 사용
+    @EventListener(ApplicationStartedEvent.class)
     public void init(){
-        initMemberService.init();
+        if (!properties.isAsync()) {
+            seed();
+            return;
+        }
+        Thread thread = new Thread(this::seed, "init-member");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void seed() {
+        try {
+            if (properties.getSnapshot() != null) {
+                seedFromSnapshot(Path.of(properties.getSnapshot()));
+            } else {
+                generator.generate(properties);
+            }
+            seeded.complete(null);
+        } catch (RuntimeException e) {
+            log.error("initial data seeding failed", e);
+            seeded.completeExceptionally(e);
+            //동기 모드면 데이터 없이 뜨지 않도록 시작을 실패시킨다
+            if (!properties.isAsync()) {
+                throw e;
+            }
+        }
     }
 
-    @Component
-    static class InitMemberService{
-        @PersistenceContext
-        private EntityManager em;
-
-        @Transactional
-        public void init(){
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for(int i=0; i<100; i++){
-                Team selectTeam = i % 2 ==0 ? teamA : teamB;
-                em.persist(new Member("member"+i,i,selectTeam));
+    //스냅샷이 있으면 복원, 없거나 설정이 바뀌었으면 생성하고 다음 시작을 위해 저장
+    //파일이 깨졌으면(아무것도 넣기 전) 생성한다. 테이블이 비어 있지 않거나 넣다가 실패하면
+    //(restore 가 넣은 행은 스스로 지운다) 기존 데이터를 건드리지 않고 seed 를 실패시킨다
+    private void seedFromSnapshot(Path file) {
+        try {
+            if (snapshot.restore(file, properties.fingerprint()).isPresent()) {
+                return;
             }
+        } catch (IOException e) {
+            log.warn("seed snapshot {} could not be restored, generating instead", file, e);
+        }
+        generator.generate(properties);
+        try {
+            snapshot.save(file, properties.fingerprint());
+        } catch (IOException e) {
+            log.warn("seed snapshot {} could not be written", file, e);
+        }
+    }
+
+    public boolean isSeeded() {
+        return seeded.isDone() && !seeded.isCompletedExceptionally();
+    }
+
+    //부하 테스트 등에서 데이터가 다 들어갈 때까지 기다린다
+    public void awaitSeeded(Duration timeout) throws InterruptedException, TimeoutException {
+        try {
+            seeded.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("initial data seeding failed", e.getCause());
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (isSeeded()) {
+            return Health.up().build();
         }
+        return (seeded.isCompletedExceptionally() ? Health.down() : Health.outOfService())
+                .withDetail("members", properties.getMembers())
+                .build();
     }
 }
@@ -1,22 +1,154 @@
 package com.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.querydsl.config.MemberDataVersion;
+import com.querydsl.dto.EstimatedPage;
+import com.querydsl.dto.KeysetCursor;
+import com.querydsl.dto.KeysetSlice;
+import com.querydsl.dto.MemberColumnarDto;
 import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberSearchKey;
 import com.querydsl.dto.MemberTeamDto;
 import com.querydsl.repository.MemberJpaRepository;
+import com.querydsl.repository.MemberRepository;
+import com.querydsl.repository.MemberSearchIndex;
+import com.querydsl.repository.MemberSearchSingleFlight;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    public static final String COLUMNAR_JSON = "application/vnd.members.columnar+json";
+    public static final String CBOR = "application/cbor";
+    public static final String SMILE = "application/x-jackson-smile";
+
     private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberDataVersion memberDataVersion;
+    private final ObjectProvider<MemberSearchIndex> searchIndex;
+    private final MemberSearchSingleFlight singleFlight;
+
+    @Value("${app.stream.fetch-size:500}")
+    private int streamFetchSize;
 
+    //데이터 버전이 그대로면 DB 조회 없이 304
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.search(condition);
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, WebRequest request){
+        if (request.checkNotModified(memberDataVersion.etag(MemberSearchKey.of(condition), "rows"))) {
+            return null;
+        }
+        return search(condition);
+    }
+
+    //Accept 로 요청했을 때만 컬럼 형식(팀 이름 사전 인코딩), 기본은 위의 행 단위 JSON
+    //응답 형식마다 핸들러를 나눠 ETag 에 Accept 원문이 아니라 협상된 형식만 들어가게 한다
+    @GetMapping(value = "/v1/members", produces = COLUMNAR_JSON)
+    public MemberColumnarDto searchMemberV1Columnar(MemberSearchCondition condition, WebRequest request){
+        return columnar(condition, request, COLUMNAR_JSON);
+    }
+
+    @GetMapping(value = "/v1/members", produces = CBOR)
+    public MemberColumnarDto searchMemberV1Cbor(MemberSearchCondition condition, WebRequest request){
+        return columnar(condition, request, CBOR);
+    }
+
+    @GetMapping(value = "/v1/members", produces = SMILE)
+    public MemberColumnarDto searchMemberV1Smile(MemberSearchCondition condition, WebRequest request){
+        return columnar(condition, request, SMILE);
+    }
+
+    private MemberColumnarDto columnar(MemberSearchCondition condition, WebRequest request, String mediaType) {
+        if (request.checkNotModified(memberDataVersion.etag(MemberSearchKey.of(condition), "columnar:" + mediaType))) {
+            return null;
+        }
+        return new MemberColumnarDto(search(condition));
+    }
+
+    //메모리 인덱스가 켜져 있고 준비되었으면 인덱스에서, 아니면 DB 에서
+    @GetMapping("/v2/members")
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
+        MemberSearchIndex index = searchIndex.getIfAvailable();
+        if (index != null) {
+            Optional<Page<MemberTeamDto>> indexed = index.searchPage(condition, pageable);
+            if (indexed.isPresent()) {
+                return indexed.get();
+            }
+        }
+        return singleFlight.execute("page", MemberSearchKey.of(condition, pageable),
+                () -> memberRepository.searchPage(condition, pageable));
+    }
+
+    //"약 N건" 표시용: total 이 추정치면 approximate=true
+    @GetMapping("/v3/members")
+    public EstimatedPage<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
+        return memberRepository.searchPageEstimated(condition, pageable);
+    }
+
+    //다음 페이지는 응답의 nextCursor 를 cursor 로 넘긴다
+    @GetMapping("/v1/members/slice")
+    public KeysetSlice<MemberTeamDto> searchMemberSlice(MemberSearchCondition condition,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int size){
+        try {
+            return memberRepository.searchSlice(condition, KeysetCursor.decode(cursor), size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    //결과를 메모리에 모으지 않고 한 줄에 한 건씩 바로 응답에 쓴다
+    @GetMapping(value = "/v1/members/stream", produces = NDJSON)
+    public void streamMembers(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class);
+        OutputStream out = response.getOutputStream();
+        try {
+            memberJpaRepository.stream(condition, streamFetchSize, dto -> {
+                try {
+                    out.write(writer.writeValueAsBytes(dto));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    private List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchIndex index = searchIndex.getIfAvailable();
+        if (index != null) {
+            Optional<List<MemberTeamDto>> indexed = index.search(condition);
+            if (indexed.isPresent()) {
+                return indexed.get();
+            }
+        }
+        //동시에 들어온 같은 조건은 DB 조회 한 번으로
+        return singleFlight.execute("rows", MemberSearchKey.of(condition), () -> memberRepository.search(condition));
     }
 }
@@ -0,0 +1,17 @@
+package com.querydsl.dto;
+
+import lombok.Value;
+
+//청크 단위 벌크 작업 진행 상황 (누적)
+@Value
+public class BulkProgress {
+
+    String operation;
+    int chunks;
+    long rows;
+    long elapsedMillis;
+
+    public long getRowsPerSecond() {
+        return rows * 1000 / Math.max(1, elapsedMillis);
+    }
+}
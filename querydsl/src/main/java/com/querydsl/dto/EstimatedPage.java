@@ -0,0 +1,28 @@
+package com.querydsl.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * totalElements 가 추정치일 수 있는 페이지.
+ * approximate 이면 실제 total 은 totalElements ± errorBound 범위 안에 있다. (통계 갱신 지연분 제외)
+ */
+@Getter
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean approximate;
+    private final long errorBound;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean approximate, long errorBound) {
+        super(content, pageable, total);
+        this.approximate = approximate;
+        this.errorBound = approximate ? errorBound : 0;
+    }
+
+    public static <T> EstimatedPage<T> exact(List<T> content, Pageable pageable, long total) {
+        return new EstimatedPage<>(content, pageable, total, false, 0);
+    }
+}
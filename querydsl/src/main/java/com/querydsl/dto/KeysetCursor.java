@@ -0,0 +1,61 @@
+package com.querydsl.dto;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset(seek) 페이징 커서. 마지막으로 읽은 member.id 를 기억하고
+ * 다음 페이지는 offset 대신 {@code member.id > lastId} 로 찾아간다.
+ * 클라이언트에는 불투명한 토큰 문자열로만 노출한다.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeysetCursor {
+
+    private static final String PREFIX = "id:";
+
+    private final Long lastId;
+
+    public static KeysetCursor first() {
+        return new KeysetCursor(null);
+    }
+
+    public static KeysetCursor after(Long lastId) {
+        return new KeysetCursor(lastId);
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public String encode() {
+        if (isFirst()) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    //토큰이 없으면 첫 페이지
+    public static KeysetCursor decode(String token) {
+        if (!StringUtils.hasText(token)) {
+            return first();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("invalid cursor: " + token);
+            }
+            return after(Long.valueOf(raw.substring(PREFIX.length())));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor; //마지막 페이지면 null
+
+    public KeysetSlice(List<T> content, int size, KeysetCursor next) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = next != null;
+        this.nextCursor = next != null ? next.encode() : null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 검색 결과를 컬럼 단위 배열로 표현한다. 팀은 teamIds/teamNames 사전(같은 위치가 같은 팀)에 한번씩만 담고
+ * 각 행은 teamIndex 로 참조한다(팀이 없으면 -1).
+ */
+@Getter
+public class MemberColumnarDto {
+
+    private final int size;
+    private final Long[] memberId;
+    private final String[] username;
+    private final int[] age;
+    private final int[] teamIndex;
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<String> teamNames = new ArrayList<>();
+
+    public MemberColumnarDto(List<MemberTeamDto> rows) {
+        size = rows.size();
+        memberId = new Long[size];
+        username = new String[size];
+        age = new int[size];
+        teamIndex = new int[size];
+
+        //이름이 같은 다른 팀도 있을 수 있으므로 팀 id 로 찾는다
+        Map<Long, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            MemberTeamDto row = rows.get(i);
+            memberId[i] = row.getMemberId();
+            username[i] = row.getUsername();
+            age[i] = row.getAge();
+            if (row.getTeamId() == null) {
+                teamIndex[i] = -1;
+            } else {
+                teamIndex[i] = dictionary.computeIfAbsent(row.getTeamId(), id -> {
+                    teamIds.add(id);
+                    teamNames.add(row.getTeamName());
+                    return teamIds.size() - 1;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.querydsl.dto;
+
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.StringUtils;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * 검색 조건 + 페이지 요청을 정규화한 키. 캐시/ETag 등에서 같은 검색을 식별할 때 쓴다.
+ * 리포지토리에서 조건이 무시되는 값(빈 username, 공백 teamName)은 null 로 맞춘다.
+ */
+@Value
+public class MemberSearchKey {
+
+    String username;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+    Integer page;
+    Integer size;
+    String sort;
+
+    public static MemberSearchKey of(MemberSearchCondition condition) {
+        return of(condition, Pageable.unpaged());
+    }
+
+    public static MemberSearchKey of(MemberSearchCondition condition, Pageable pageable) {
+        return new MemberSearchKey(
+                isEmpty(condition.getUsername()) ? null : condition.getUsername(),
+                StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe(),
+                pageable.isPaged() ? pageable.getPageNumber() : null,
+                pageable.isPaged() ? pageable.getPageSize() : null,
+                pageable.getSort().isSorted() ? pageable.getSort().toString() : null);
+    }
+}
@@ -0,0 +1,16 @@
+package com.querydsl.dto;
+
+import lombok.Data;
+
+//벌크 update 로 바꿀 값, null 이면 그대로 둔다 (age 와 ageDelta 를 같이 주면 age)
+@Data
+public class MemberUpdateSpec {
+
+    private String username;
+    private Integer age;
+    private Integer ageDelta;
+
+    public boolean isEmpty() {
+        return username == null && age == null && ageDelta == null;
+    }
+}
@@ -1,16 +1,35 @@
 package com.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        //MemberTeamDto 조회 컬럼을 모두 포함, 나이 범위 검색은 테이블을 읽지 않는다
+        @Index(name = "idx_member_age_cover", columnList = "age, team_id, username, member_id")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"username","age"})
 public class Member {
 
-    @Id @GeneratedValue
+    //pooled-lo: 시퀀스 한 번 호출로 50개씩 메모리에서 채번 (insert 배치가 시퀀스 왕복에 막히지 않게)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "member_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -0,0 +1,172 @@
+package com.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.dto.BulkProgress;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberUpdateSpec;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import static com.querydsl.entity.QMember.member;
+import static com.querydsl.entity.QTeam.team;
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * 조건에 맞는 회원을 id 순으로 chunk-size 건씩 잘라서 update/delete 한다.
+ * - 청크마다 별도 트랜잭션으로 커밋하므로 락은 그 청크 행에만, 그 청크 동안만 잡힌다.
+ * - 청크 단위로 커밋되므로 호출하는 쪽 트랜잭션 안에서는 쓸 수 없다(NEVER).
+ * - 요청 범위 EntityManager(open-in-view)가 열려 있으면 청크마다 비워서 이후 조회가 바뀐 값을 읽게 한다.
+ *   2차 캐시는 벌크 DML 실행 시 Hibernate 가 member 영역을 비운다.
+ * - 중간에 실패하면 이미 커밋된 청크는 그대로 남는다.
+ */
+@Slf4j
+@Repository
+@Transactional(propagation = Propagation.NEVER)
+public class MemberBulkRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTx;
+    private final int chunkSize;
+
+    public MemberBulkRepository(EntityManager em, JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                                @Value("${app.bulk.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk-size must be positive: " + chunkSize);
+        }
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkProgress update(MemberSearchCondition condition, MemberUpdateSpec spec, Consumer<BulkProgress> progress) {
+        if (spec.isEmpty()) {
+            throw new IllegalArgumentException("nothing to update: " + spec);
+        }
+        return inChunks("update", condition, progress, ids -> {
+            JPAUpdateClause update = queryFactory
+                    .update(member)
+                    .where(inChunk(ids, condition));
+            if (spec.getUsername() != null) {
+                update.set(member.username, spec.getUsername());
+            }
+            if (spec.getAge() != null) {
+                update.set(member.age, spec.getAge());
+            } else if (spec.getAgeDelta() != null) {
+                update.set(member.age, member.age.add(spec.getAgeDelta()));
+            }
+            return update.execute();
+        });
+    }
+
+    public BulkProgress delete(MemberSearchCondition condition, Consumer<BulkProgress> progress) {
+        return inChunks("delete", condition, progress, ids -> queryFactory
+                .delete(member)
+                .where(inChunk(ids, condition))
+                .execute());
+    }
+
+    //id 를 읽은 뒤 다른 트랜잭션이 커밋한 변경으로 조건에서 벗어난 행은 건드리지 않도록 DML 에도 조건을 다시 건다.
+    //벌크 DML 에는 join 을 쓸 수 없어서 팀 이름은 서브쿼리로
+    private Predicate[] inChunk(List<Long> ids, MemberSearchCondition condition) {
+        return new Predicate[]{
+                member.id.in(ids),
+                usernameEq(condition.getUsername()),
+                StringUtils.hasText(condition.getTeamName())
+                        ? member.team.id.in(JPAExpressions.select(team.id).from(team).where(team.name.eq(condition.getTeamName())))
+                        : null,
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())};
+    }
+
+    //대상 id 를 keyset 으로 잘라 읽고, 그 id 들만 DML 로 처리한다 (조건 컬럼이 바뀌어도 같은 행을 두 번 처리하지 않는다)
+    //진행 건수는 DML 이 실제로 바꾼 행 수
+    private BulkProgress inChunks(String operation, MemberSearchCondition condition, Consumer<BulkProgress> progress,
+                                  ToLongFunction<List<Long>> dml) {
+        long start = System.nanoTime();
+        BulkProgress current = new BulkProgress(operation, 0, 0, 0);
+        Long lastId = null;
+        while (true) {
+            Long after = lastId;
+            Chunk chunk = chunkTx.execute(status -> {
+                List<Long> ids = queryFactory
+                        .select(member.id)
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                idGt(after),
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe()))
+                        .orderBy(member.id.asc())
+                        .limit(chunkSize)
+                        .fetch();
+                long rows = ids.isEmpty() ? 0 : dml.applyAsLong(ids);
+                em.clear();
+                return new Chunk(ids, rows);
+            });
+            List<Long> ids = chunk.ids;
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+            current = new BulkProgress(operation, current.getChunks() + 1, current.getRows() + chunk.rows,
+                    (System.nanoTime() - start) / 1_000_000);
+            log.debug("member bulk {}: {} rows in {} chunks ({} rows/s)",
+                    operation, current.getRows(), current.getChunks(), current.getRowsPerSecond());
+            progress.accept(current);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        log.info("member bulk {} done: {} rows in {} chunks, {} ms ({} rows/s)", operation,
+                current.getRows(), current.getChunks(), current.getElapsedMillis(), current.getRowsPerSecond());
+        return current;
+    }
+
+    @RequiredArgsConstructor
+    private static class Chunk {
+        private final List<Long> ids;
+        private final long rows;
+    }
+
+    private BooleanExpression idGt(Long id) {
+        return id != null ? member.id.gt(id) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return isEmpty(username) ? null : member.username.eq(username);
+    }
+}
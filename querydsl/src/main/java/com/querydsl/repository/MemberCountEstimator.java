@@ -0,0 +1,218 @@
+package com.querydsl.repository;
+
+import com.querydsl.config.MemberDataChangedEvent;
+import com.querydsl.core.Tuple;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.querydsl.entity.QMember.member;
+import static com.querydsl.entity.QTeam.team;
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * searchPage 의 total 을 count 쿼리 없이 추정한다.
+ * - 팀별 나이 구간(bucket-width) 히스토그램을 group by 한 번으로 만들어 두고, 조건에 걸치는 구간만 더한다.
+ * - 조건이 구간 중간에서 끊기면 선형 보간하고, 그 구간 크기만큼을 오차 범위로 잡는다.
+ * - 회원명 조건은 히스토그램으로 알 수 없으므로 추정하지 않는다.
+ * - 엔티티 단위 변경은 한 건당 결과가 최대 1 바뀌므로 만든 뒤 변경 건수만큼 오차 범위를 넓히고,
+ *   max-staleness 가 지나면 추정을 멈추고(정확한 count) 백그라운드에서 다시 만든다.
+ * - 벌크 update/delete 는 몇 건이 바뀌었는지 모르므로 바로 추정을 멈추고 다시 만든다.
+ */
+@Slf4j
+@Component
+public class MemberCountEstimator {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTx;
+    private final int bucketWidth;
+    private final long threshold;
+    private final long maxStalenessMillis;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "member-count-estimator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    //마지막으로 만든 뒤 처음 변경된 시각, 0 이면 변경 없음
+    private final AtomicLong staleSince = new AtomicLong();
+    //지금까지의 변경 건수, 히스토그램은 만들기 시작할 때의 값을 같이 들고 있다
+    private final AtomicLong entityChanges = new AtomicLong();
+    private final AtomicLong bulkChanges = new AtomicLong();
+
+    private volatile Histogram histogram;
+
+    public MemberCountEstimator(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                                @Value("${app.search.estimate.bucket-width:5}") int bucketWidth,
+                                @Value("${app.search.estimate.threshold:10000}") long threshold,
+                                @Value("${app.search.estimate.max-staleness-ms:60000}") long maxStalenessMillis) {
+        if (bucketWidth < 1) {
+            throw new IllegalArgumentException("bucket-width must be positive: " + bucketWidth);
+        }
+        this.queryFactory = queryFactory;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.bucketWidth = bucketWidth;
+        this.threshold = threshold;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        if (event.isBulk()) {
+            bulkChanges.incrementAndGet();
+            scheduleRebuild();
+            return;
+        }
+        entityChanges.incrementAndGet();
+        staleSince.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * 추정치가 threshold 이상일 때만 값을 준다. 비어 있으면 정확한 count 를 써야 한다.
+     */
+    public Optional<Estimate> estimate(MemberSearchCondition condition) {
+        //리포지토리의 usernameEq 와 같은 판단 (공백 회원명도 조건이다)
+        if (!isEmpty(condition.getUsername())) {
+            return Optional.empty();
+        }
+        Histogram current = histogram;
+        long changedAt = staleSince.get();
+        if (current == null || current.bulkChanges != bulkChanges.get()
+                || (changedAt != 0 && System.currentTimeMillis() - changedAt > maxStalenessMillis)) {
+            scheduleRebuild();
+            return Optional.empty();
+        }
+        Estimate estimate = current.estimate(condition, bucketWidth);
+        long changed = entityChanges.get() - current.entityChanges;
+        if (changed > 0) {
+            estimate = new Estimate(estimate.getCount(), estimate.getErrorBound() + changed);
+        }
+        return estimate.getCount() >= threshold ? Optional.of(estimate) : Optional.empty();
+    }
+
+    //히스토그램을 지금 바로 다시 만든다 (테스트, 벤치마크용)
+    public void refresh() {
+        //읽는 도중의 변경은 새 히스토그램에 빠졌을 수 있으므로 읽기 전 값을 기록한다
+        long entity = entityChanges.get();
+        long bulk = bulkChanges.get();
+        staleSince.set(0);
+        histogram = readOnlyTx.execute(status -> load(entity, bulk));
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.warn("member count histogram rebuild failed", e);
+                }
+            });
+        }
+    }
+
+    private Histogram load(long entityChangesAtLoad, long bulkChangesAtLoad) {
+        //member.team.id 는 FK 컬럼이라 조인 없이 팀 없는 회원(null)도 같이 집계된다
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, member.age, member.count())
+                .from(member)
+                .groupBy(member.team.id, member.age)
+                .fetch();
+        Map<Long, NavigableMap<Integer, Long>> bucketsByTeam = new HashMap<>();
+        for (Tuple row : rows) {
+            int bucket = Math.floorDiv(row.get(member.age), bucketWidth);
+            bucketsByTeam.computeIfAbsent(row.get(member.team.id), id -> new TreeMap<>())
+                    .merge(bucket, row.get(member.count()), Long::sum);
+        }
+
+        Map<String, List<Long>> teamIdsByName = new HashMap<>();
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            teamIdsByName.computeIfAbsent(row.get(team.name), name -> new ArrayList<>()).add(row.get(team.id));
+        }
+        return new Histogram(bucketsByTeam, teamIdsByName, entityChangesAtLoad, bulkChangesAtLoad);
+    }
+
+    @lombok.Value
+    public static class Estimate {
+        long count;
+        long errorBound; //실제 값은 count ± errorBound
+    }
+
+    private static class Histogram {
+
+        final Map<Long, NavigableMap<Integer, Long>> bucketsByTeam;
+        final Map<String, List<Long>> teamIdsByName;
+        final long entityChanges;
+        final long bulkChanges;
+
+        Histogram(Map<Long, NavigableMap<Integer, Long>> bucketsByTeam, Map<String, List<Long>> teamIdsByName,
+                  long entityChanges, long bulkChanges) {
+            this.bucketsByTeam = bucketsByTeam;
+            this.teamIdsByName = teamIdsByName;
+            this.entityChanges = entityChanges;
+            this.bulkChanges = bulkChanges;
+        }
+
+        Estimate estimate(MemberSearchCondition condition, int width) {
+            Iterable<Long> teamIds = StringUtils.hasText(condition.getTeamName())
+                    ? teamIdsByName.getOrDefault(condition.getTeamName(), Collections.emptyList())
+                    : bucketsByTeam.keySet();
+            int from = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            int to = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+            if (from > to) {
+                return new Estimate(0, 0);
+            }
+            int fromBucket = Math.floorDiv(from, width);
+            int toBucket = Math.floorDiv(to, width);
+
+            double count = 0;
+            double error = 0;
+            for (Long teamId : teamIds) {
+                NavigableMap<Integer, Long> buckets = bucketsByTeam.get(teamId);
+                if (buckets == null) {
+                    continue;
+                }
+                for (Map.Entry<Integer, Long> entry : buckets.subMap(fromBucket, true, toBucket, true).entrySet()) {
+                    long lo = (long) entry.getKey() * width;
+                    long hi = lo + width - 1;
+                    long covered = Math.min(hi, to) - Math.max(lo, from) + 1;
+                    if (covered >= width) {
+                        count += entry.getValue();
+                    } else {
+                        //구간 일부만 걸치면 균등 분포로 보고 비율만큼, 오차는 그 구간 전체
+                        count += entry.getValue() * (double) covered / width;
+                        error += entry.getValue();
+                    }
+                }
+            }
+            return new Estimate(Math.round(count), (long) Math.ceil(error));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.querydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
@@ -10,14 +11,21 @@ import com.querydsl.entity.Member;
 
 import com.querydsl.entity.QMember;
 import com.querydsl.entity.QTeam;
+import com.querydsl.entity.Team;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.querydsl.entity.QMember.*;
 import static com.querydsl.entity.QTeam.*;
@@ -25,16 +33,60 @@ import static org.springframework.util.ObjectUtils.isEmpty;
 
 @Repository
 @RequiredArgsConstructor
+@Transactional(readOnly = true) //읽기는 replica 로 라우팅, 쓰기 메서드만 따로 지정
 public class MemberJpaRepository {
 
     // 싱글톤 동시성문제? 스프링에서 프록시 가짜를 주입해서 트랜잭션단위로 각각 바인딩 해줘서 동시성문제 발생하지 않는다
     private final EntityManager em;
     private final JPAQueryFactory queryFactory; //bean 등록
+
+    private static final int STREAM_CLEAR_INTERVAL = 1000;
+    //jdbc.batch_size(50) 의 배수, 영속성 컨텍스트가 이 이상 커지지 않는다
+    private static final int SAVE_FLUSH_INTERVAL = 1000;
     
+    @Transactional
     public void save(Member member){
         em.persist(member);
     }
 
+    /**
+     * 대량 저장. insert 는 jdbc 배치로 묶이고 SAVE_FLUSH_INTERVAL 건마다 flush 후 저장한 엔티티만 detach 한다.
+     * 바깥 트랜잭션에 참여해도 호출한 쪽이 들고 있던 영속 엔티티는 그대로 관리된다. (clear 하지 않는다)
+     * 저장한 엔티티는 준영속 상태로 돌아오고, 2차 캐시에는 넣지 않는다.
+     * 한 번 호출이 한 트랜잭션이고 커밋 전까지 insert 액션은 세션에 남으므로, 수십만 건 이상은 나눠서 호출한다.
+     */
+    @Transactional
+    public long saveAll(Iterable<Member> members){
+        Session session = em.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            long count = 0;
+            List<Member> chunk = new ArrayList<>(SAVE_FLUSH_INTERVAL);
+            for (Member m : members) {
+                em.persist(m);
+                chunk.add(m);
+                if (++count % SAVE_FLUSH_INTERVAL == 0) {
+                    flushAndDetach(chunk);
+                }
+            }
+            flushAndDetach(chunk);
+            //Team.members 는 mappedBy 쪽이라 insert 로는 컬렉션 캐시가 무효화되지 않는다
+            if (count > 0) {
+                session.getSessionFactory().getCache().evictCollectionData(Team.class.getName() + ".members");
+            }
+            return count;
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+    }
+
+    private void flushAndDetach(List<Member> chunk) {
+        em.flush();
+        chunk.forEach(em::detach);
+        chunk.clear();
+    }
+
     public Optional<Member> findById(Long id){
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
@@ -100,8 +152,35 @@ public class MemberJpaRepository {
     }
 
 
-
-
+    //전체 결과를 List 로 만들지 않고 forward-only 커서로 한 건씩 넘긴다
+    public void stream(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> consumer){
+        try (CloseableIterator<MemberTeamDto> iterator = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age
+                        ,team.id.as("teamId")
+                        ,team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .iterate()) {
+            int count = 0;
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                //영속성 컨텍스트가 계속 커지지 않도록 주기적으로 비운다
+                if (++count % STREAM_CLEAR_INTERVAL == 0) {
+                    em.clear();
+                }
+            }
+        }
+    }
 
     private BooleanExpression ageLoe(Integer ageLoe) {
         return ageLoe !=null ? member.age.loe(ageLoe) : null;
@@ -2,10 +2,28 @@ package com.querydsl.repository;
 
 import com.querydsl.entity.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 public interface MemberRepository extends JpaRepository<Member,Long> ,MemberRepositoryCustom{
 
     List<Member> findByUsername(String username);
+
+    //조회 전용: 스냅샷을 만들지 않으므로 반환된 엔티티를 바꿔도 DB 에 반영되지 않는다 (바깥 쓰기 트랜잭션 안에서도)
+    @Transactional(readOnly = true)
+    @Query("select m from Member m")
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Member> findAllReadOnly();
+
+    @Transactional(readOnly = true)
+    @Query("select m from Member m where m.username = :username")
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Member> findByUsernameReadOnly(@Param("username") String username);
 }
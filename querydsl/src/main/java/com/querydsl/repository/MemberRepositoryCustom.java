@@ -1,5 +1,8 @@
 package com.querydsl.repository;
 
+import com.querydsl.dto.EstimatedPage;
+import com.querydsl.dto.KeysetCursor;
+import com.querydsl.dto.KeysetSlice;
 import com.querydsl.dto.MemberSearchCondition;
 import com.querydsl.dto.MemberTeamDto;
 import org.springframework.data.domain.Page;
@@ -15,6 +18,20 @@ public interface MemberRepositoryCustom {
 
     Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable);
 
+    Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, PagingStrategy strategy);
+
+    //content 쿼리와 count 쿼리를 서로 다른 커넥션에서 동시에 실행
+    Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable);
+
+    //total 을 히스토그램 추정치로 (approximate 플래그), 추정치가 threshold 미만이면 정확한 count
+    EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable);
+
+    //같은 조건 + 페이지 요청이면 캐시된 결과, member/team 변경 시 무효화
+    Page<MemberTeamDto> searchPageCached(MemberSearchCondition condition, Pageable pageable);
+
+    //offset 없이 member.id 기준 keyset 페이징
+    KeysetSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, KeysetCursor cursor, int size);
+
 
 
 }
@@ -1,51 +1,64 @@
 package com.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.dto.EstimatedPage;
+import com.querydsl.dto.KeysetCursor;
+import com.querydsl.dto.KeysetSlice;
 import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberSearchKey;
 import com.querydsl.dto.MemberTeamDto;
 import com.querydsl.dto.QMemberTeamDto;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import static com.querydsl.entity.QMember.member;
 import static com.querydsl.entity.QTeam.team;
 import static org.springframework.util.ObjectUtils.isEmpty;
 import static org.springframework.util.ObjectUtils.toObjectArray;
 
-
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryTemplates templates;
+    private final MemberSearchPageCache pageCache;
+    private final ParallelQueryExecutor parallelExecutor;
+    private final MemberCountEstimator countEstimator;
 
-    public MemberRepositoryImpl(JPAQueryFactory queryFactory) {
+    public MemberRepositoryImpl(EntityManager em, JPAQueryFactory queryFactory, MemberSearchQueryTemplates templates,
+                                MemberSearchPageCache pageCache, ParallelQueryExecutor parallelExecutor,
+                                MemberCountEstimator countEstimator) {
+        this.em = em;
         this.queryFactory = queryFactory;
+        this.templates = templates;
+        this.pageCache = pageCache;
+        this.parallelExecutor = parallelExecutor;
+        this.countEstimator = countEstimator;
     }
 
+    //조건 조합별로 캐시된 JPQL 에 파라미터만 바인딩한다
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition){
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age
-                        ,team.id.as("teamId")
-                        ,team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
+        return templates.contentQuery(em, condition).getResultList();
     }
 
     @Override
@@ -77,7 +90,91 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     @Override
     public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> results = queryFactory
+        List<MemberTeamDto> results = pageContent(condition, pageable);
+
+        //첫 페이지가 pageSize 보다 작거나 마지막 페이지면 count 쿼리 생략
+        return PageableExecutionUtils.getPage(results, pageable, () -> fetchCount(condition));
+    }
+
+    //호출 스레드는 커넥션을 잡고 있을 필요가 없다
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable) {
+        Future<List<MemberTeamDto>> content = parallelExecutor.submit(() -> pageContent(condition, pageable));
+        //unpaged 면 total 은 content 크기이므로 count 를 띄우지 않는다
+        Future<Long> count = pageable.isPaged()
+                ? parallelExecutor.submit(() -> fetchCount(condition))
+                : null;
+
+        long deadline = parallelExecutor.deadline();
+        List<MemberTeamDto> results;
+        try {
+            results = parallelExecutor.await(content, deadline);
+        } catch (RuntimeException e) {
+            if (count != null) {
+                count.cancel(true);
+            }
+            throw e;
+        }
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(results, pageable, () -> parallelExecutor.await(
+                count != null ? count : parallelExecutor.submit(() -> fetchCount(condition)), deadline));
+        if (count != null) {
+            count.cancel(true); //count 가 필요 없었던 경우
+        }
+        return page;
+    }
+
+    @Override
+    public EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> results = pageContent(condition, pageable);
+
+        //content 만으로 total 을 알 수 있으면 추정할 필요도 count 할 필요도 없다
+        if (pageable.isUnpaged() || (results.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !results.isEmpty()))) {
+            return EstimatedPage.exact(results, pageable, pageable.isUnpaged() ? results.size() : pageable.getOffset() + results.size());
+        }
+        return countEstimator.estimate(condition)
+                .map(estimate -> new EstimatedPage<>(results, pageable, estimate.getCount(), true, estimate.getErrorBound()))
+                .orElseGet(() -> EstimatedPage.exact(results, pageable, fetchCount(condition)));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageCached(MemberSearchCondition condition, Pageable pageable) {
+        return pageCache.get(MemberSearchKey.of(condition, pageable), () -> searchPage(condition, pageable));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, PagingStrategy strategy) {
+        return strategy == PagingStrategy.DEFERRED_JOIN
+                ? searchPageDeferred(condition, pageable)
+                : searchPage(condition, pageable);
+    }
+
+    private Page<MemberTeamDto> searchPageDeferred(MemberSearchCondition condition, Pageable pageable) {
+        //OFFSET 경로(pageContent)와 같은 순서: pageable 정렬 + member.id
+        OrderSpecifier<?>[] orderBy = orderBy(pageable.getSort());
+
+        //1. 좁은 인덱스로 페이지에 해당하는 id 만 조회, 팀 조건/정렬이 없으면 조인도 생략 (조건이 있으면 inner join)
+        JPAQuery<Long> idQuery = queryFactory
+                .select(member.id)
+                .from(member);
+        if (StringUtils.hasText(condition.getTeamName())) {
+            idQuery.join(member.team, team);
+        } else if (pageable.getSort().stream().anyMatch(order -> order.getProperty().startsWith("team"))) {
+            idQuery.leftJoin(member.team, team);
+        }
+        List<Long> ids = idQuery
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(orderBy)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        //2. 해당 id 들만 DTO 로 조회
+        List<MemberTeamDto> results = ids.isEmpty() ? new ArrayList<>() : queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -87,28 +184,96 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .where(member.id.in(ids))
+                .orderBy(orderBy)
                 .fetch();
 
-        //카운터 쿼리 별도 작성, 최적화 가능
-        long total = queryFactory
-                .select(member)
+        return PageableExecutionUtils.getPage(results, pageable, () -> fetchCount(condition));
+    }
+
+    private List<MemberTeamDto> pageContent(MemberSearchCondition condition, Pageable pageable) {
+        TypedQuery<MemberTeamDto> query = templates.contentQuery(em, condition, pageable.getSort());
+        //Unpaged 는 getOffset() 에서 예외가 나므로 전체를 조회한다
+        if (pageable.isPaged()) {
+            query.setFirstResult(Math.toIntExact(pageable.getOffset()))
+                    .setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    //MemberSearchQueryTemplates.orderBy 와 같은 속성, 같은 순서
+    private static OrderSpecifier<?>[] orderBy(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = sortPath(order.getProperty());
+            byId |= path == member.id;
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+        }
+        if (!byId) {
+            orders.add(member.id.asc());
+        }
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    private static ComparableExpressionBase<?> sortPath(String property) {
+        switch (property) {
+            case "memberId":
+                return member.id;
+            case "username":
+                return member.username;
+            case "age":
+                return member.age;
+            case "teamId":
+                return team.id;
+            case "teamName":
+                return team.name;
+            default:
+                throw new IllegalArgumentException("unsupported sort property: " + property);
+        }
+    }
+
+    private long fetchCount(MemberSearchCondition condition) {
+        Long count = templates.countQuery(em, condition).getSingleResult();
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    public KeysetSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, KeysetCursor cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        //size+1 개를 가져와서 다음 페이지 존재 여부 판단, count 쿼리 없음
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age
+                        , team.id.as("teamId")
+                        , team.name.as("teamName")
+                ))
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
+                        idGt(cursor),
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe()))
-                .fetchCount(); 
-        
-        return new PageImpl<>(results,pageable,total);
+                .orderBy(member.id.asc())
+                .limit(size + 1)
+                .fetch();
+
+        KeysetCursor next = null;
+        if (content.size() > size) {
+            content = content.subList(0, size);
+            next = KeysetCursor.after(content.get(size - 1).getMemberId());
+        }
+        return new KeysetSlice<>(content, size, next);
+    }
+
+    private BooleanExpression idGt(KeysetCursor cursor) {
+        return cursor == null || cursor.isFirst() ? null : member.id.gt(cursor.getLastId());
     }
 
     private BooleanExpression ageLoe(Integer ageLoe) {
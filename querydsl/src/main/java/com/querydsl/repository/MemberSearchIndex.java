@@ -0,0 +1,515 @@
+package com.querydsl.repository;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.config.MemberDataChangedEvent;
+import com.querydsl.core.Tuple;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberTeamDto;
+import com.querydsl.entity.Member;
+import com.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static com.querydsl.entity.QMember.member;
+import static com.querydsl.entity.QTeam.team;
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * MemberSearchCondition 을 DB 없이 메모리에서 처리하는 컬럼형 인덱스. (app.search.index.enabled=true)
+ * - 나이: int[], 팀: 사전 인코딩된 int[] + 팀별 BitSet, 회원명: 해시 인덱스
+ * - 엔티티 단위 변경은 스냅샷 위의 행 단위 delta(overlay)로 바로 반영하고, delta 가 쌓이면 새 스냅샷으로 합친다.
+ * - 벌크 쿼리나 팀 이름 변경/삭제처럼 어떤 행이 바뀌었는지 모르는 변경이 오면 다시 만들고,
+ *   만드는 동안에는 비어있는 결과(Optional.empty)를 돌려줘서 호출하는 쪽이 DB 로 조회하게 한다.
+ * - 다시 만든 스냅샷은 시작할 때의 세대(generation)가 그대로일 때만 반영한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.search.index", name = "enabled", havingValue = "true")
+public class MemberSearchIndex {
+
+    //overlay 가 이만큼 쌓이면 스냅샷을 새로 만들어 합친다
+    static final int OVERLAY_LIMIT = 4096;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "member-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    //state 교체는 synchronized(this) 안에서만, 읽기는 volatile 로
+    private volatile State state = State.EMPTY;
+
+    public MemberSearchIndex(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        scheduleRebuild();
+    }
+
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        boolean applied;
+        synchronized (this) {
+            applied = applyDelta(event);
+            if (!applied) {
+                state = state.invalidate();
+            }
+        }
+        if (!applied || state.overlay.size() > OVERLAY_LIMIT) {
+            scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return state.snapshot != null;
+    }
+
+    public Optional<List<MemberTeamDto>> search(MemberSearchCondition condition) {
+        State current = state;
+        if (current.snapshot == null) {
+            return Optional.empty();
+        }
+        List<MemberTeamDto> result = new ArrayList<>();
+        current.forEachMatch(condition, result::add);
+        return Optional.of(result);
+    }
+
+    public Optional<Page<MemberTeamDto>> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        State current = state;
+        //인덱스는 id 순서로만 돌므로 다른 정렬이나 unpaged 는 DB 에 맡긴다
+        if (current.snapshot == null || pageable.isUnpaged() || pageable.getSort().isSorted()) {
+            return Optional.empty();
+        }
+        List<MemberTeamDto> content = new ArrayList<>(pageable.getPageSize());
+        long[] skip = {pageable.getOffset()};
+        long total = current.forEachMatch(condition, row -> {
+            if (skip[0] > 0) {
+                skip[0]--;
+            } else if (content.size() < pageable.getPageSize()) {
+                content.add(row);
+            }
+        });
+        return Optional.of(new PageImpl<>(content, pageable, total));
+    }
+
+    //회원 백만 명당 대략적인 메모리 사용량
+    public String footprintReport() {
+        State current = state;
+        Snapshot snapshot = current.snapshot;
+        if (snapshot == null) {
+            return "member search index not built";
+        }
+        long bytes = snapshot.estimatedBytes() + (long) current.overlay.size() * 96;
+        return String.format("member search index: %d members, %d teams, %d pending deltas, ~%d KB (~%d MB per million members)",
+                snapshot.size, snapshot.teamIds.length, current.overlay.size(), bytes / 1024,
+                snapshot.size == 0 ? 0 : bytes * 1_000_000L / snapshot.size / (1024 * 1024));
+    }
+
+    //행 단위로 반영할 수 없으면 false
+    private boolean applyDelta(MemberDataChangedEvent event) {
+        if (event.isBulk() || event.getChange() == null) {
+            return false;
+        }
+        long sequence = state.sequence + 1;
+        if (event.getEntity() instanceof Team) {
+            Team changed = (Team) event.getEntity();
+            if (event.getChange() != MemberDataChangedEvent.Change.INSERT) {
+                return false;
+            }
+            state = state.withTeam(changed.getId(), new TeamDelta(changed.getName(), sequence), sequence);
+            return true;
+        }
+        Member changed = (Member) event.getEntity();
+        if (event.getChange() == MemberDataChangedEvent.Change.DELETE) {
+            state = state.withRow(changed.getId(), new RowDelta(null, null, 0, null, sequence), sequence);
+            return true;
+        }
+        Long teamId = teamId(changed.getTeam());
+        //스냅샷에도 delta 에도 없는 팀이면 팀 이름을 알 수 없다 (다시 만드는 중이면 만든 뒤에 찾는다)
+        if (teamId != null && state.snapshot != null && state.teamName(teamId) == null) {
+            return false;
+        }
+        RowDelta delta = new RowDelta(changed.getId(), changed.getUsername(), changed.getAge(), teamId, sequence);
+        state = state.withRow(changed.getId(), delta, sequence);
+        return true;
+    }
+
+    //커밋 이후라 세션이 없을 수 있으므로 프록시는 초기화하지 않는다
+    private static Long teamId(Team team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        rebuildScheduled.set(false);
+        State started = state;
+        try {
+            Snapshot built = readOnlyTx.execute(status -> load());
+            boolean published;
+            synchronized (this) {
+                //만드는 동안 무효화됐으면 버리고 다시. 만드는 동안 들어온 delta 는 남긴다
+                published = state.generation == started.generation;
+                if (published) {
+                    state = state.rebase(built, started.sequence);
+                }
+            }
+            if (published) {
+                log.info(footprintReport());
+            } else {
+                scheduleRebuild();
+            }
+        } catch (RuntimeException e) {
+            log.warn("member search index rebuild failed", e);
+        }
+    }
+
+    private Snapshot load() {
+        Snapshot.Builder builder = new Snapshot.Builder();
+        try (CloseableIterator<Tuple> iterator = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc())
+                .iterate()) {
+            while (iterator.hasNext()) {
+                Tuple row = iterator.next();
+                builder.add(row.get(member.id), row.get(member.username), row.get(member.age),
+                        row.get(team.id), row.get(team.name));
+            }
+        }
+        return builder.build();
+    }
+
+    private static class RowDelta {
+        final Long id; //삭제면 null
+        final String username;
+        final int age;
+        final Long teamId;
+        final long sequence;
+
+        RowDelta(Long id, String username, int age, Long teamId, long sequence) {
+            this.id = id;
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class TeamDelta {
+        final String name;
+        final long sequence;
+
+        TeamDelta(String name, long sequence) {
+            this.name = name;
+            this.sequence = sequence;
+        }
+    }
+
+    //스냅샷 + id 순으로 정렬된 delta. 바뀔 때마다 새로 만든다 (overlay 는 OVERLAY_LIMIT 근처로 유지된다)
+    private static class State {
+
+        static final State EMPTY = new State(null, new TreeMap<>(), new HashMap<>(), 0, 0);
+
+        final Snapshot snapshot; //null 이면 다시 만드는 중
+        final TreeMap<Long, RowDelta> overlay;
+        final Map<Long, TeamDelta> teams;
+        final long generation;
+        final long sequence;
+
+        State(Snapshot snapshot, TreeMap<Long, RowDelta> overlay, Map<Long, TeamDelta> teams, long generation, long sequence) {
+            this.snapshot = snapshot;
+            this.overlay = overlay;
+            this.teams = teams;
+            this.generation = generation;
+            this.sequence = sequence;
+        }
+
+        State invalidate() {
+            return new State(null, overlay, teams, generation + 1, sequence);
+        }
+
+        State withRow(Long id, RowDelta delta, long sequence) {
+            TreeMap<Long, RowDelta> rows = new TreeMap<>(overlay);
+            rows.put(id, delta);
+            return new State(snapshot, rows, teams, generation, sequence);
+        }
+
+        State withTeam(Long id, TeamDelta delta, long sequence) {
+            Map<Long, TeamDelta> changed = new HashMap<>(teams);
+            changed.put(id, delta);
+            return new State(snapshot, overlay, changed, generation, sequence);
+        }
+
+        //since 이후의 delta 는 새 스냅샷에 들어갔는지 모르므로 남긴다 (같은 값을 덮어쓰는 것이라 중복 적용해도 된다)
+        State rebase(Snapshot built, long since) {
+            TreeMap<Long, RowDelta> rows = new TreeMap<>();
+            overlay.forEach((id, delta) -> {
+                if (delta.sequence > since) {
+                    rows.put(id, delta);
+                }
+            });
+            Map<Long, TeamDelta> changed = new HashMap<>();
+            teams.forEach((id, delta) -> {
+                if (delta.sequence > since) {
+                    changed.put(id, delta);
+                }
+            });
+            return new State(built, rows, changed, generation, sequence);
+        }
+
+        String teamName(Long teamId) {
+            TeamDelta delta = teams.get(teamId);
+            if (delta != null) {
+                return delta.name;
+            }
+            return snapshot != null ? snapshot.teamName(teamId) : null;
+        }
+
+        //스냅샷과 overlay 를 id 순으로 합쳐 조건에 맞는 행을 방문하고 전체 건수를 돌려준다
+        long forEachMatch(MemberSearchCondition condition, Consumer<MemberTeamDto> visitor) {
+            BitSet rows = snapshot.evaluate(condition);
+            for (Long id : overlay.keySet()) {
+                int row = snapshot.rowOf(id);
+                if (row >= 0) {
+                    rows.clear(row);
+                }
+            }
+            Iterator<RowDelta> deltas = overlay.values().iterator();
+            MemberTeamDto pending = nextMatch(deltas, condition);
+            long total = 0;
+            int i = rows.nextSetBit(0);
+            while (i >= 0 || pending != null) {
+                MemberTeamDto next;
+                if (pending != null && (i < 0 || pending.getMemberId() < snapshot.ids[i])) {
+                    next = pending;
+                    pending = nextMatch(deltas, condition);
+                } else {
+                    next = snapshot.toDto(i);
+                    i = rows.nextSetBit(i + 1);
+                }
+                total++;
+                visitor.accept(next);
+            }
+            return total;
+        }
+
+        private MemberTeamDto nextMatch(Iterator<RowDelta> deltas, MemberSearchCondition condition) {
+            while (deltas.hasNext()) {
+                RowDelta delta = deltas.next();
+                if (delta.id == null) {
+                    continue;
+                }
+                MemberTeamDto row = new MemberTeamDto(delta.id, delta.username, delta.age,
+                        delta.teamId, delta.teamId != null ? teamName(delta.teamId) : null);
+                if (matches(row, condition)) {
+                    return row;
+                }
+            }
+            return null;
+        }
+
+        //Snapshot.evaluate 와 같은 의미
+        private static boolean matches(MemberTeamDto row, MemberSearchCondition condition) {
+            if (!isEmpty(condition.getUsername()) && !condition.getUsername().equals(row.getUsername())) {
+                return false;
+            }
+            if (StringUtils.hasText(condition.getTeamName()) && !condition.getTeamName().equals(row.getTeamName())) {
+                return false;
+            }
+            if (condition.getAgeGoe() != null && row.getAge() < condition.getAgeGoe()) {
+                return false;
+            }
+            return condition.getAgeLoe() == null || row.getAge() <= condition.getAgeLoe();
+        }
+    }
+
+    private static class Snapshot {
+
+        final int size;
+        final long[] ids;
+        final String[] usernames;
+        final int[] ages;
+        final int[] teamCodes; //팀 없으면 -1
+        final Long[] teamIds;
+        final String[] teamNames;
+        final Map<String, Integer> teamCodeByName;
+        final BitSet[] rowsByTeam;
+        final Map<String, int[]> rowsByUsername;
+        final Map<Long, Integer> teamCodeById;
+
+        Snapshot(Builder b) {
+            size = b.size;
+            ids = Arrays.copyOf(b.ids, size);
+            usernames = Arrays.copyOf(b.usernames, size);
+            ages = Arrays.copyOf(b.ages, size);
+            teamCodes = Arrays.copyOf(b.teamCodes, size);
+            teamIds = b.teamIds.toArray(new Long[0]);
+            teamNames = b.teamNames.toArray(new String[0]);
+            teamCodeByName = new HashMap<>();
+            teamCodeById = new HashMap<>(b.codeByTeamId);
+            rowsByTeam = new BitSet[teamIds.length];
+            for (int code = 0; code < teamIds.length; code++) {
+                rowsByTeam[code] = new BitSet(size);
+                //팀 이름이 같은 팀이 여러 개면 첫 번째 팀 코드로 묶는다
+                teamCodeByName.putIfAbsent(teamNames[code], code);
+            }
+            Map<String, List<Integer>> usernameRows = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                if (teamCodes[i] >= 0) {
+                    rowsByTeam[teamCodeByName.get(teamNames[teamCodes[i]])].set(i);
+                }
+                usernameRows.computeIfAbsent(usernames[i], k -> new ArrayList<>(1)).add(i);
+            }
+            rowsByUsername = new HashMap<>(usernameRows.size() * 4 / 3 + 1);
+            usernameRows.forEach((name, rows) -> rowsByUsername.put(name, rows.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        //리포지토리의 usernameEq/teamNameEq/ageGoe/ageLoe 와 같은 의미
+        BitSet evaluate(MemberSearchCondition condition) {
+            BitSet rows = new BitSet(size);
+            rows.set(0, size);
+            if (!isEmpty(condition.getUsername())) {
+                BitSet byName = new BitSet(size);
+                int[] matches = rowsByUsername.get(condition.getUsername());
+                if (matches != null) {
+                    for (int row : matches) {
+                        byName.set(row);
+                    }
+                }
+                rows.and(byName);
+            }
+            if (StringUtils.hasText(condition.getTeamName())) {
+                Integer code = teamCodeByName.get(condition.getTeamName());
+                if (code == null) {
+                    return new BitSet();
+                }
+                rows.and(rowsByTeam[code]);
+            }
+            Integer goe = condition.getAgeGoe();
+            Integer loe = condition.getAgeLoe();
+            if (goe != null || loe != null) {
+                int min = goe != null ? goe : Integer.MIN_VALUE;
+                int max = loe != null ? loe : Integer.MAX_VALUE;
+                for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                    if (ages[i] < min || ages[i] > max) {
+                        rows.clear(i);
+                    }
+                }
+            }
+            return rows;
+        }
+
+        //ids 는 id 오름차순이다. 없으면 음수
+        int rowOf(Long id) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            return row >= 0 ? row : -1;
+        }
+
+        String teamName(Long teamId) {
+            Integer code = teamCodeById.get(teamId);
+            return code != null ? teamNames[code] : null;
+        }
+
+        MemberTeamDto toDto(int row) {
+            int code = teamCodes[row];
+            return new MemberTeamDto(ids[row], usernames[row], ages[row],
+                    code >= 0 ? teamIds[code] : null,
+                    code >= 0 ? teamNames[code] : null);
+        }
+
+        //배열/BitSet/해시 인덱스의 대략적인 크기 (문자열 본문 포함)
+        long estimatedBytes() {
+            long bytes = (long) size * (8 + 4 + 4 + 8);              //ids, ages, teamCodes, usernames 참조
+            for (String name : usernames) {
+                bytes += 40 + (name != null ? name.length() : 0);   //String 객체 + byte[]
+            }
+            bytes += (long) rowsByUsername.size() * (48 + 20);        //HashMap 엔트리 + int[]
+            bytes += (long) rowsByTeam.length * (size / 8 + 32);     //팀별 BitSet
+            return bytes;
+        }
+
+        static class Builder {
+            int size;
+            long[] ids = new long[1024];
+            String[] usernames = new String[1024];
+            int[] ages = new int[1024];
+            int[] teamCodes = new int[1024];
+            final List<Long> teamIds = new ArrayList<>();
+            final List<String> teamNames = new ArrayList<>();
+            final Map<Long, Integer> codeByTeamId = new HashMap<>();
+
+            void add(Long id, String username, Integer age, Long teamId, String teamName) {
+                if (size == ids.length) {
+                    int capacity = size * 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    usernames = Arrays.copyOf(usernames, capacity);
+                    ages = Arrays.copyOf(ages, capacity);
+                    teamCodes = Arrays.copyOf(teamCodes, capacity);
+                }
+                ids[size] = id;
+                usernames[size] = username;
+                ages[size] = age != null ? age : 0;
+                teamCodes[size] = teamId == null ? -1 : codeByTeamId.computeIfAbsent(teamId, tid -> {
+                    teamIds.add(tid);
+                    teamNames.add(teamName);
+                    return teamIds.size() - 1;
+                });
+                size++;
+            }
+
+            Snapshot build() {
+                return new Snapshot(this);
+            }
+        }
+    }
+}
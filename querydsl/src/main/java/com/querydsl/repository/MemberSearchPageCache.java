@@ -0,0 +1,70 @@
+package com.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.config.MemberDataChangedEvent;
+import com.querydsl.dto.MemberSearchKey;
+import com.querydsl.dto.MemberTeamDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * searchPage 결과(content + total) 캐시. 크기는 엔트리 수가 아니라 담고 있는 행 수로 제한한다.
+ * member/team 이 바뀌면(MemberDataChangedEvent) 전부 비운다.
+ */
+@Component
+public class MemberSearchPageCache {
+
+    private final Cache<MemberSearchKey, Page<MemberTeamDto>> cache;
+    //비우는 중에 계산된 오래된 결과가 다시 들어가지 않도록 세대를 비교한다
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberSearchPageCache(@Value("${app.search.cache.max-rows:100000}") long maxRows,
+                                 MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((MemberSearchKey key, Page<MemberTeamDto> page) -> Math.max(1, page.getNumberOfElements()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberSearchPage");
+    }
+
+    public Page<MemberTeamDto> get(MemberSearchKey key, Supplier<Page<MemberTeamDto>> loader) {
+        Page<MemberTeamDto> page = cache.getIfPresent(key);
+        if (page != null) {
+            return page;
+        }
+        long current = generation.get();
+        page = loader.get();
+        if (cacheable()) {
+            Page<MemberTeamDto> loaded = page;
+            //세대 비교와 저장을 키 단위로 원자적으로 한다. 비교 뒤에 세대가 바뀌면 뒤이은 invalidateAll 이 이 키를 기다렸다가 지운다
+            cache.asMap().compute(key, (k, existing) -> generation.get() == current ? loaded : existing);
+        }
+        return page;
+    }
+
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    //쓰기 트랜잭션 안에서 읽은 결과는 롤백될 수 있으므로 담지 않는다
+    private boolean cacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,189 @@
+package com.querydsl.repository;
+
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberTeamDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.util.ObjectUtils.isEmpty;
+
+/**
+ * MemberSearchCondition 조건 조합(최대 16가지)별로 content/count JPQL 을 한번만 만들어 캐시한다.
+ * 같은 JPQL 문자열이 재사용되므로 Hibernate 쿼리 플랜 캐시도 그대로 적중하고,
+ * 요청마다 파라미터 바인딩만 한다. (MemberRepositoryImpl 의 search/searchPage 가 쓴다)
+ * 적중률은 member.search.template{result=hit|miss} 로 노출한다.
+ */
+@Component
+public class MemberSearchQueryTemplates implements MeterBinder {
+
+    static final int USERNAME = 1;
+    static final int TEAM_NAME = 1 << 1;
+    static final int AGE_GOE = 1 << 2;
+    static final int AGE_LOE = 1 << 3;
+    //shape 와 같이 캐시 키로 쓴다
+    private static final int COUNT = 1 << 4;
+
+    //정렬 가능한 MemberTeamDto 속성과 JPQL 경로, 그 외 속성은 거부한다
+    private static final Map<String, String> SORT_PATHS = Map.of(
+            "memberId", "m.id",
+            "username", "m.username",
+            "age", "m.age",
+            "teamId", "t.id",
+            "teamName", "t.name");
+
+    private final Map<Integer, String> templates = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    //조건 값이 아니라 어떤 조건이 있는지(shape)만 본다, 판단 기준은 리포지토리의 xxxEq 메서드와 동일
+    public static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (!isEmpty(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    //MemberTeamDto 프로젝션
+    public TypedQuery<MemberTeamDto> contentQuery(EntityManager em, MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        return bind(em.createQuery(template(shape), MemberTeamDto.class), shape, condition);
+    }
+
+    //페이지용: Pageable 정렬 뒤에 m.id 를 붙여 페이지 사이 순서가 항상 같게 한다
+    public TypedQuery<MemberTeamDto> contentQuery(EntityManager em, MemberSearchCondition condition, Sort sort) {
+        int shape = shapeOf(condition);
+        return bind(em.createQuery(template(shape) + orderBy(sort), MemberTeamDto.class), shape, condition);
+    }
+
+    //projection/order by 없이 count 만, 팀 조건이 없으면 조인 제거
+    public TypedQuery<Long> countQuery(EntityManager em, MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        return bind(em.createQuery(template(shape | COUNT), Long.class), shape, condition);
+    }
+
+    String template(int key) {
+        String jpql = templates.get(key);
+        if (jpql != null) {
+            hits.increment();
+            return jpql;
+        }
+        misses.increment();
+        return templates.computeIfAbsent(key, MemberSearchQueryTemplates::compile);
+    }
+
+    static String orderBy(Sort sort) {
+        StringBuilder orderBy = new StringBuilder(" order by ");
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            String path = SORT_PATHS.get(order.getProperty());
+            if (path == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            byId |= path.equals("m.id");
+            orderBy.append(path).append(order.isAscending() ? " asc" : " desc").append(", ");
+        }
+        if (byId) {
+            return orderBy.substring(0, orderBy.length() - 2);
+        }
+        return orderBy.append("m.id asc").toString();
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, int shape, MemberSearchCondition condition) {
+        if ((shape & USERNAME) != 0) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query;
+    }
+
+    private static String compile(int key) {
+        StringBuilder jpql = new StringBuilder();
+        //팀 이름 조건이 있으면 팀 없는 회원은 어차피 걸러지므로 inner join, idx_team_name 으로 team 부터 찾는다
+        boolean teamName = (key & TEAM_NAME) != 0;
+        if ((key & COUNT) != 0) {
+            jpql.append("select count(m) from Member m");
+            if (teamName) {
+                jpql.append(" join m.team t");
+            }
+        } else {
+            jpql.append("select new com.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)")
+                    .append(teamName ? " from Member m join m.team t" : " from Member m left join m.team t");
+        }
+        String prefix = " where ";
+        if ((key & USERNAME) != 0) {
+            jpql.append(prefix).append("m.username = :username");
+            prefix = " and ";
+        }
+        if (teamName) {
+            jpql.append(prefix).append("t.name = :teamName");
+            prefix = " and ";
+        }
+        if ((key & AGE_GOE) != 0) {
+            jpql.append(prefix).append("m.age >= :ageGoe");
+            prefix = " and ";
+        }
+        if ((key & AGE_LOE) != 0) {
+            jpql.append(prefix).append("m.age <= :ageLoe");
+        }
+        return jpql.toString();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("member.search.template", this, MemberSearchQueryTemplates::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("member.search.template", this, MemberSearchQueryTemplates::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("member.search.template.size", this, MemberSearchQueryTemplates::size)
+                .register(registry);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0.0 : (double) hit / total;
+    }
+
+    public int size() {
+        return templates.size();
+    }
+}
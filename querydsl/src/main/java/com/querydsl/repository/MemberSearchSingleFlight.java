@@ -0,0 +1,115 @@
+package com.querydsl.repository;
+
+import com.querydsl.config.MemberDataChangedEvent;
+import com.querydsl.dto.MemberSearchKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 같은 검색(MemberSearchKey)이 동시에 여러 번 들어오면 DB 조회는 한 번만 하고 결과를 나눠 갖는다.
+ * - 먼저 온 요청이 조회하고, 그동안 들어온 같은 요청은 그 결과(또는 예외)를 기다린다. 끝나면 바로 잊는다(캐시 아님).
+ * - 결과 객체를 여러 요청이 같이 쓰므로 호출하는 쪽에서 바꾸면 안 된다.
+ * - 붙은 요청은 app.search.singleflight.timeout(기본은 app.search.parallel.timeout)까지만 기다리고 QueryTimeoutException.
+ * - member/team 이 바뀌면 진행 중인 조회에 새 요청이 붙지 않게 한다 (커밋 이후 요청이 이전 결과를 받지 않도록).
+ * 메트릭: member.search.singleflight{result=executed|coalesced}
+ */
+@Component
+public class MemberSearchSingleFlight {
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+    private final long timeoutMillis;
+
+    public MemberSearchSingleFlight(MeterRegistry meterRegistry,
+                                    @Value("${app.search.singleflight.timeout:${app.search.parallel.timeout:5s}}") Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+        this.executed = Counter.builder("member.search.singleflight")
+                .tag("result", "executed")
+                .description("searches that ran a query")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("member.search.singleflight")
+                .tag("result", "coalesced")
+                .description("searches that shared an in-flight query")
+                .register(meterRegistry);
+        meterRegistry.gauge("member.search.singleflight.in-flight", inFlight, Map::size);
+    }
+
+    /**
+     * @param kind 같은 키라도 결과 형태가 다르면(목록/페이지 등) 구분한다
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String kind, MemberSearchKey key, Supplier<T> loader) {
+        //쓰기 트랜잭션 안에서는 커밋 전 데이터가 보일 수 있으므로 나누지 않는다
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.get();
+        }
+        List<Object> flightKey = List.of(kind, key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) join(existing, timeoutMillis);
+        }
+        executed.increment();
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    @EventListener
+    public void onDataChanged(MemberDataChangedEvent event) {
+        inFlight.clear();
+    }
+
+    public double executedCount() {
+        return executed.count();
+    }
+
+    public double coalescedCount() {
+        return coalesced.count();
+    }
+
+    //먼저 온 요청의 조회를 취소하지는 않는다 (그 요청은 자기 결과를 계속 기다린다)
+    private static Object join(CompletableFuture<Object> future, long timeoutMillis) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("timed out waiting for in-flight search", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("interrupted while waiting for in-flight search", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.querydsl.repository;
+
+public enum PagingStrategy {
+
+    //content 쿼리 하나로 조인된 전체 행을 offset/limit
+    OFFSET,
+
+    //id 만 먼저 offset/limit 으로 고르고, 그 id 들로 DTO 를 조회 (ids first, then hydrate)
+    DEFERRED_JOIN
+}
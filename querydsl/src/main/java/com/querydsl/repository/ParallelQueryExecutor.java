@@ -0,0 +1,115 @@
+package com.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 조회 쿼리를 별도 스레드/커넥션/읽기 전용 트랜잭션에서 실행한다.
+ * 기본은 크기가 제한된 스레드풀, app.search.parallel.virtual-threads=true 이고
+ * 런타임이 지원하면(JDK 21+) 가상 스레드를 쓴다. 가상 스레드도 동시에 실행되는 쿼리는 threads 개까지.
+ * 트랜잭션 timeout 을 걸어 두므로 기다리지 않게 된 쿼리도 DB 에서 계속 돌지 않는다.
+ */
+@Slf4j
+@Component
+public class ParallelQueryExecutor {
+
+    private final ExecutorService executor;
+    //가상 스레드일 때만 사용, 스레드풀은 크기 자체가 제한
+    private final Semaphore permits;
+    private final TransactionTemplate readOnlyTx;
+    private final long timeoutNanos;
+
+    public ParallelQueryExecutor(PlatformTransactionManager transactionManager,
+                                 @Value("${app.search.parallel.threads:8}") int threads,
+                                 @Value("${app.search.parallel.queue:64}") int queueSize,
+                                 @Value("${app.search.parallel.virtual-threads:false}") boolean virtualThreads,
+                                 @Value("${app.search.parallel.timeout:5s}") Duration timeout) {
+        ExecutorService virtual = virtualThreads ? virtualThreadExecutor() : null;
+        this.executor = virtual != null ? virtual : boundedExecutor(threads, queueSize);
+        this.permits = virtual != null ? new Semaphore(threads) : null;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx.setReadOnly(true);
+        //초 단위, 쿼리마다 남은 시간으로 statement timeout 이 걸린다
+        this.readOnlyTx.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    //cancel(true) 하면 실행 중인 스레드를 interrupt 한다 (FutureTask)
+    public <T> Future<T> submit(Supplier<T> query) {
+        return executor.submit(() -> {
+            if (permits == null) {
+                return readOnlyTx.execute(status -> query.get());
+            }
+            permits.acquire();
+            try {
+                return readOnlyTx.execute(status -> query.get());
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    //deadline 은 System.nanoTime() 기준, 여러 Future 를 같은 기한으로 기다릴 때 사용
+    public long deadline() {
+        return System.nanoTime() + timeoutNanos;
+    }
+
+    public <T> T await(Future<T> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new QueryTimeoutException("parallel query timed out", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("interrupted while waiting for parallel query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    //큐가 차면 호출한 스레드에서 실행해서 자연스럽게 속도를 늦춘다
+    private static ExecutorService boundedExecutor(int threads, int queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("virtual threads not available, using bounded thread pool");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.querydsl.repository;
+
+import com.querydsl.dto.TeamWithMembersDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface TeamRepositoryCustom {
+
+    //팀을 먼저 페이징하고, 페이지에 있는 팀들의 회원은 IN 쿼리 한번으로 조회
+    Page<TeamWithMembersDto> findTeamsWithMembers(Pageable pageable);
+}
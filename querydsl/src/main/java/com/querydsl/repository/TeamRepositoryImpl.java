@@ -0,0 +1,63 @@
+package com.querydsl.repository;
+
+import com.querydsl.dto.QTeamMemberDto;
+import com.querydsl.dto.QTeamWithMembersDto;
+import com.querydsl.dto.TeamMemberDto;
+import com.querydsl.dto.TeamWithMembersDto;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.querydsl.entity.QMember.member;
+import static com.querydsl.entity.QTeam.team;
+
+@Transactional(readOnly = true)
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamRepositoryImpl(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public Page<TeamWithMembersDto> findTeamsWithMembers(Pageable pageable) {
+        //컬렉션 페치 조인은 페이징이 안되므로 팀만 페이징
+        List<TeamWithMembersDto> teams = queryFactory
+                .select(new QTeamWithMembersDto(team.id, team.name))
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        if (!teams.isEmpty()) {
+            List<Long> teamIds = teams.stream()
+                    .map(TeamWithMembersDto::getTeamId)
+                    .collect(Collectors.toList());
+
+            Map<Long, List<TeamMemberDto>> membersByTeam = queryFactory
+                    .select(new QTeamMemberDto(member.id, member.username, member.age, member.team.id))
+                    .from(member)
+                    .where(member.team.id.in(teamIds))
+                    .orderBy(member.id.asc())
+                    .fetch()
+                    .stream()
+                    .collect(Collectors.groupingBy(TeamMemberDto::getTeamId));
+
+            teams.forEach(t -> t.getMembers().addAll(membersByTeam.getOrDefault(t.getTeamId(), List.of())));
+        }
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(team.count())
+                .from(team);
+        return PageableExecutionUtils.getPage(teams, pageable, countQuery::fetchOne);
+    }
+}
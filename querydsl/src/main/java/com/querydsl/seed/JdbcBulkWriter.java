@@ -0,0 +1,48 @@
+package com.querydsl.seed;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 초기 데이터 적재용 JDBC 헬퍼. 여러 행을 values 하나에 묶어서 왕복 수를 줄인다.
+ */
+class JdbcBulkWriter {
+
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    JdbcBulkWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void insert(String prefix, String rowPlaceholder, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Object[]> group = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            String sql = prefix + String.join(", ", Collections.nCopies(group.size(), rowPlaceholder));
+            jdbcTemplate.update(sql, group.stream().flatMap(Arrays::stream).toArray());
+        }
+    }
+
+    //count 개의 id 를 잡아두고 첫 id 를 돌려준다 (기존 최대값, 시퀀스 다음 값 이후)
+    long reserveIds(String table, String idColumn, String sequence, long count) {
+        Long maxId = jdbcTemplate.queryForObject("select max(" + idColumn + ") from " + table, Long.class);
+        Long next = jdbcTemplate.queryForObject("select next value for " + sequence, Long.class);
+        long first = Math.max(next != null ? next : 1, maxId != null ? maxId + 1 : 1);
+        restartSequence(sequence, first + count);
+        return first;
+    }
+
+    //직접 넣은 id 뒤에서 JPA 채번이 이어지도록
+    void restartAfterMaxId(String table, String idColumn, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("select max(" + idColumn + ") from " + table, Long.class);
+        restartSequence(sequence, maxId != null ? maxId + 1 : 1);
+    }
+
+    private void restartSequence(String sequence, long next) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + next);
+    }
+}
@@ -0,0 +1,131 @@
+package com.querydsl.seed;
+
+import com.querydsl.config.MemberDataChangedEvent;
+import com.querydsl.dto.BulkProgress;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SeedProperties 대로 team/member 를 JPA 를 거치지 않고 JDBC 로 채운다. 앱 초기화, 벤치마크, 부하 테스트에서 같이 쓴다.
+ * - 여러 행을 values 하나에 묶은 insert(JdbcBulkWriter)로 넣고, batchSize 행마다 커밋한다.
+ * - id 는 기존 최대값과 시퀀스 다음 값 이후로 잡고, 넣기 전에 시퀀스를 그 뒤로 옮겨 JPA 채번과 겹치지 않게 한다.
+ * - 영속성 컨텍스트/2차 캐시를 거치지 않으므로 끝나면 MemberDataChangedEvent(bulk) 를 발행한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberDataGenerator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BulkProgress generate(SeedProperties spec) {
+        if (spec.getMembers() < 0 || spec.getTeams() < 1 || spec.getBatchSize() < 1 || spec.getMaxAge() < 0) {
+            throw new IllegalArgumentException("invalid seed spec: members=" + spec.getMembers() + ", teams=" + spec.getTeams()
+                    + ", batchSize=" + spec.getBatchSize() + ", maxAge=" + spec.getMaxAge());
+        }
+        long start = System.nanoTime();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        JdbcBulkWriter writer = new JdbcBulkWriter(jdbcTemplate);
+        Sampler sampler = new Sampler(spec);
+
+        long firstTeamId = writer.reserveIds("team", "team_id", "team_seq", spec.getTeams());
+        tx.executeWithoutResult(status -> {
+            List<Object[]> teams = new ArrayList<>(spec.getTeams());
+            for (int i = 0; i < spec.getTeams(); i++) {
+                teams.add(new Object[]{firstTeamId + i, teamName(i)});
+            }
+            writer.insert("insert into team (team_id, name) values ", "(?, ?)", teams);
+        });
+
+        long firstMemberId = writer.reserveIds("member", "member_id", "member_seq", spec.getMembers());
+        BulkProgress progress = new BulkProgress("seed", 0, 0, 0);
+        for (int offset = 0; offset < spec.getMembers(); offset += spec.getBatchSize()) {
+            int from = offset;
+            int to = (int) Math.min((long) offset + spec.getBatchSize(), spec.getMembers());
+            tx.executeWithoutResult(status -> {
+                List<Object[]> members = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    members.add(new Object[]{firstMemberId + i, "member" + i, sampler.age(i), firstTeamId + sampler.team(i)});
+                }
+                writer.insert("insert into member (member_id, username, age, team_id) values ", "(?, ?, ?, ?)", members);
+            });
+            progress = new BulkProgress("seed", progress.getChunks() + 1, to, (System.nanoTime() - start) / 1_000_000);
+            log.debug("seed: {}/{} members ({} rows/s)", to, spec.getMembers(), progress.getRowsPerSecond());
+        }
+        log.info("seed: {} teams, {} members in {} ms ({} rows/s)", spec.getTeams(), progress.getRows(),
+                progress.getElapsedMillis(), progress.getRowsPerSecond());
+
+        eventPublisher.publishEvent(new MemberDataChangedEvent("Team", true));
+        eventPublisher.publishEvent(new MemberDataChangedEvent("Member", true));
+        return progress;
+    }
+
+    //teamA, teamB, ... teamZ, teamAA, teamAB ...
+    static String teamName(int index) {
+        StringBuilder suffix = new StringBuilder();
+        for (int n = index; n >= 0; n = n / 26 - 1) {
+            suffix.append((char) ('A' + n % 26));
+        }
+        return "team" + suffix.reverse();
+    }
+
+    /**
+     * 번호 순서대로 호출하면 seed 가 같을 때 항상 같은 값을 낸다.
+     */
+    static class Sampler {
+
+        private final SeedProperties spec;
+        private final Random random;
+        private final double[] cumulative; //Zipf 누적 확률, 균등(번갈아) 배정이면 null
+
+        Sampler(SeedProperties spec) {
+            this.spec = spec;
+            this.random = new Random(spec.getSeed());
+            if (spec.getTeamSkew() > 0) {
+                cumulative = new double[spec.getTeams()];
+                double sum = 0;
+                for (int k = 0; k < cumulative.length; k++) {
+                    sum += 1 / Math.pow(k + 1, spec.getTeamSkew());
+                    cumulative[k] = sum;
+                }
+                for (int k = 0; k < cumulative.length; k++) {
+                    cumulative[k] /= sum;
+                }
+            } else {
+                cumulative = null;
+            }
+        }
+
+        int team(long i) {
+            if (cumulative == null) {
+                return (int) (i % spec.getTeams());
+            }
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+
+        int age(long i) {
+            switch (spec.getAgeDistribution()) {
+                case UNIFORM:
+                    return random.nextInt(spec.getMaxAge() + 1);
+                case NORMAL:
+                    long age = Math.round(spec.getAgeMean() + random.nextGaussian() * spec.getAgeStddev());
+                    return (int) Math.max(0, Math.min(spec.getMaxAge(), age));
+                default:
+                    return (int) (i % (spec.getMaxAge() + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.querydsl.seed;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 초기 데이터 생성 설정. 기본값은 예전 InitMember 와 같은 데이터(teamA/teamB, member0~99, 나이 = 번호, 팀 번갈아)를 만든다.
+ */
+@Getter @Setter
+@ConfigurationProperties("app.seed")
+public class SeedProperties {
+
+    private int members = 100;
+    private int teams = 2;
+    //팀 배정 Zipf 지수, 0 이면 팀을 번갈아(균등) 배정하고 클수록 앞 팀(teamA)에 몰린다
+    private double teamSkew = 0.0;
+    private AgeDistribution ageDistribution = AgeDistribution.SEQUENTIAL;
+    private int maxAge = 99;
+    private double ageMean = 35;
+    private double ageStddev = 12;
+    //같은 seed 면 같은 데이터
+    private long seed = 42;
+    //한 트랜잭션에서 넣을 행 수
+    private int batchSize = 10_000;
+    //true 면 시작을 막지 않고 백그라운드에서 채운다 (다 채울 때까지 readiness DOWN)
+    private boolean async = true;
+    //스냅샷 파일 경로, 있으면 생성 대신 복원하고 없으면 생성 후 저장한다 (null 이면 사용 안 함)
+    private String snapshot;
+
+    //생성 결과를 바꾸는 설정만, 스냅샷이 같은 데이터인지 확인할 때 쓴다
+    public String fingerprint() {
+        return members + "/" + teams + "/" + teamSkew + "/" + ageDistribution + "/" + maxAge + "/"
+                + ageMean + "/" + ageStddev + "/" + seed;
+    }
+
+    public enum AgeDistribution {
+        SEQUENTIAL, //번호 % (maxAge + 1)
+        UNIFORM,
+        NORMAL      //ageMean, ageStddev, 0 ~ maxAge 로 자름
+    }
+}
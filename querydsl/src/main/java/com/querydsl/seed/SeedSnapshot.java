@@ -0,0 +1,262 @@
+package com.querydsl.seed;
+
+import com.querydsl.config.MemberDataChangedEvent;
+import com.querydsl.dto.BulkProgress;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * team/member 테이블을 바이너리 파일로 덤프하고, 빈 테이블에 다시 채운다.
+ * 형식: magic, version, fingerprint, team 행들, member 행들 (행 앞에 1, 끝에 0)
+ *   team   = id(long), name(string)
+ *   member = id(long), username(string), age(int), teamId(long, 없으면 -1)
+ *   string = 길이(int, null 이면 -1) + UTF-8
+ * 복원은 파일을 메모리 매핑해서 읽고 MemberDataGenerator 와 같은 방식(JdbcBulkWriter)으로 넣는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeedSnapshot {
+
+    private static final int MAGIC = 0x51534e50; //QSNP
+    private static final int VERSION = 1;
+    private static final int ROWS_PER_TRANSACTION = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void save(Path file, String fingerprint) throws IOException {
+        long start = System.nanoTime();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, fingerprint);
+            //두 테이블을 같은 트랜잭션에서 읽는다
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.query("select team_id, name from team order by team_id", rs -> {
+                    try {
+                        out.writeByte(1);
+                        out.writeLong(rs.getLong(1));
+                        writeString(out, rs.getString(2));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writeEnd(out);
+                jdbcTemplate.query("select member_id, username, age, team_id from member order by member_id", rs -> {
+                    try {
+                        out.writeByte(1);
+                        out.writeLong(rs.getLong(1));
+                        writeString(out, rs.getString(2));
+                        out.writeInt(rs.getInt(3));
+                        long teamId = rs.getLong(4);
+                        out.writeLong(rs.wasNull() ? -1 : teamId);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writeEnd(out);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("seed snapshot saved to {} ({} KB) in {} ms", file, Files.size(file) / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 파일이 없거나 fingerprint 가 다르면(설정이 바뀐 경우) 아무것도 하지 않고 empty.
+     * 잘렸거나 깨진 파일은 아무것도 넣기 전에 IOException.
+     * 테이블이 비어 있지 않으면 아무것도 건드리지 않고 IllegalStateException.
+     * 넣다가 실패하면 이번에 넣은 행을 지우고(빈 테이블에서 시작했으므로 전부) 예외를 그대로 던진다.
+     */
+    public Optional<BulkProgress> restore(Path file, String fingerprint) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("snapshot too large to map: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!matches(buffer, fingerprint)) {
+                log.info("seed snapshot {} is stale or from another version, ignoring", file);
+                return Optional.empty();
+            }
+            Long existing = jdbcTemplate.queryForObject(
+                    "select (select count(*) from team) + (select count(*) from member)", Long.class);
+            if (existing != null && existing > 0) {
+                throw new IllegalStateException("seed snapshot can only be restored into empty team/member tables");
+            }
+            validate(buffer.duplicate(), file);
+
+            BulkProgress progress;
+            try {
+                progress = insert(buffer, file, start);
+            } catch (RuntimeException e) {
+                try {
+                    clearPartialRestore();
+                } catch (RuntimeException cleanup) {
+                    e.addSuppressed(cleanup);
+                }
+                throw e;
+            }
+            eventPublisher.publishEvent(new MemberDataChangedEvent("Team", true));
+            eventPublisher.publishEvent(new MemberDataChangedEvent("Member", true));
+            return Optional.of(progress);
+        }
+    }
+
+    private BulkProgress insert(ByteBuffer buffer, Path file, long start) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        JdbcBulkWriter writer = new JdbcBulkWriter(jdbcTemplate);
+        List<Object[]> rows = new ArrayList<>();
+        while (buffer.get() == 1) {
+            rows.add(new Object[]{buffer.getLong(), readString(buffer)});
+        }
+        tx.executeWithoutResult(status -> writer.insert("insert into team (team_id, name) values ", "(?, ?)", rows));
+
+        long members = 0;
+        int chunks = 0;
+        List<Object[]> chunk = new ArrayList<>(ROWS_PER_TRANSACTION);
+        while (buffer.get() == 1) {
+            long id = buffer.getLong();
+            String username = readString(buffer);
+            int age = buffer.getInt();
+            long teamId = buffer.getLong();
+            chunk.add(new Object[]{id, username, age, teamId == -1 ? null : teamId});
+            if (chunk.size() == ROWS_PER_TRANSACTION) {
+                insertMembers(tx, writer, chunk);
+                members += chunk.size();
+                chunks++;
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertMembers(tx, writer, chunk);
+            members += chunk.size();
+            chunks++;
+        }
+        writer.restartAfterMaxId("team", "team_id", "team_seq");
+        writer.restartAfterMaxId("member", "member_id", "member_seq");
+
+        BulkProgress progress = new BulkProgress("restore", chunks, members, (System.nanoTime() - start) / 1_000_000);
+        log.info("seed snapshot restored from {}: {} teams, {} members in {} ms ({} rows/s)", file, rows.size(),
+                members, progress.getElapsedMillis(), progress.getRowsPerSecond());
+        return progress;
+    }
+
+    //restore 는 빈 테이블에서만 시작하므로 중간까지 들어간 행은 모두 이번 복원이 넣은 것이다
+    private void clearPartialRestore() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from member");
+            jdbcTemplate.update("delete from team");
+        });
+        eventPublisher.publishEvent(new MemberDataChangedEvent("Team", true));
+        eventPublisher.publishEvent(new MemberDataChangedEvent("Member", true));
+    }
+
+    //헤더 뒤를 끝까지 읽어서 두 테이블의 행과 끝 표시가 모두 있고 남는 바이트가 없는지 확인한다
+    private static void validate(ByteBuffer buffer, Path file) throws IOException {
+        try {
+            skipRows(buffer, false);
+            skipRows(buffer, true);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("seed snapshot " + file + " is truncated or corrupt", e);
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException("seed snapshot " + file + " has " + buffer.remaining() + " trailing bytes");
+        }
+    }
+
+    private static void skipRows(ByteBuffer buffer, boolean members) {
+        byte marker;
+        while ((marker = buffer.get()) == 1) {
+            buffer.getLong();
+            readString(buffer);
+            if (members) {
+                buffer.getInt();
+                buffer.getLong();
+            }
+        }
+        if (marker != 0) {
+            throw new IllegalArgumentException("unexpected row marker: " + marker);
+        }
+    }
+
+    private static boolean matches(ByteBuffer buffer, String fingerprint) {
+        try {
+            return buffer.getInt() == MAGIC && buffer.getInt() == VERSION && fingerprint.equals(readString(buffer));
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+    }
+
+    private void insertMembers(TransactionTemplate tx, JdbcBulkWriter writer, List<Object[]> chunk) {
+        tx.executeWithoutResult(status ->
+                writer.insert("insert into member (member_id, username, age, team_id) values ", "(?, ?, ?, ?)", chunk));
+    }
+
+    private static void writeEnd(DataOutputStream out) {
+        try {
+            out.writeByte(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("invalid string length: " + length);
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
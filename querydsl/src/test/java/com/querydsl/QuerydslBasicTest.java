@@ -9,6 +9,7 @@ import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.CaseBuilder;
 import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.config.SqlStatementInspector;
 import com.querydsl.dto.MemberDto;
 import com.querydsl.dto.QMemberDto;
 import com.querydsl.dto.UserDto;
@@ -34,6 +35,7 @@ import java.util.List;
 
 import static com.querydsl.entity.QMember.member;
 import static com.querydsl.entity.QTeam.team;
+import static com.querydsl.support.StatementAssertions.assertStatements;
 import static org.assertj.core.api.Assertions.*;
 
 @SpringBootTest
@@ -70,6 +72,9 @@ public class QuerydslBasicTest {
     @PersistenceUnit
     EntityManagerFactory emf;
 
+    @Autowired
+    SqlStatementInspector inspector;
+
 
     @Test
     public void sqlFunction() throws Exception {
@@ -406,6 +411,20 @@ public class QuerydslBasicTest {
         assertThat(loaded).as("페치조인적용").isTrue();
     }
 
+    //팀 접근이 회원마다 쿼리로 바뀌면(N+1) 실패
+    @Test
+    public void fetchJoinNoNPlusOne() throws Exception {
+        em.flush();
+        em.clear();
+        assertStatements(inspector, 1, () -> {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .join(member.team, team).fetchJoin()
+                    .fetch();
+            members.forEach(m -> m.getTeam().getName());
+        });
+    }
+
     @Test
     public void fetchJoi1() throws Exception {
         //given
@@ -0,0 +1,92 @@
+package com.querydsl.config;
+
+import com.querydsl.entity.Member;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//이벤트는 커밋 이후에 나가므로 테스트 트랜잭션을 쓰지 않는다
+@SpringBootTest
+class MemberDataChangePublisherTest {
+
+    static final String FAILING = "publisherFailingUpdate";
+
+    @TestConfiguration
+    static class Events {
+
+        final List<MemberDataChangedEvent> bulk = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void onDataChanged(MemberDataChangedEvent event) {
+            if (event.isBulk()) {
+                bulk.add(event);
+            }
+        }
+    }
+
+    @Autowired
+    Events events;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    //엔티티 update 가 pre 이벤트 이후 post 이벤트 전에 실패해도 같은 스레드의 다음 벌크 update 는 벌크로 알린다
+    @Test
+    public void bulkDmlAfterFailedEntityUpdateIsPublished() {
+        //Events 설정 때문에 이 테스트 클래스만 쓰는 컨텍스트라 다른 테스트에는 영향이 없다
+        emf.unwrap(SessionFactoryImpl.class).getServiceRegistry().getService(EventListenerRegistry.class)
+                .appendListeners(EventType.PRE_UPDATE, (PreUpdateEventListener) event -> {
+                    if (event.getEntity() instanceof Member && FAILING.equals(((Member) event.getEntity()).getUsername())) {
+                        throw new IllegalStateException("update failed before post event");
+                    }
+                    return false;
+                });
+        Long id = transactionTemplate.execute(status -> {
+            Member saved = new Member("publisherMember", 10);
+            em.persist(saved);
+            return saved.getId();
+        });
+        try {
+            assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+                em.find(Member.class, id).setUsername(FAILING);
+                em.flush();
+            })).hasStackTraceContaining("update failed before post event");
+
+            events.bulk.clear();
+            transactionTemplate.executeWithoutResult(status -> queryFactory
+                    .update(member)
+                    .set(member.age, member.age.add(1))
+                    .where(member.id.eq(id))
+                    .execute());
+
+            assertThat(events.bulk).extracting(MemberDataChangedEvent::getEntityName).containsExactly("Member");
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> queryFactory
+                    .delete(member)
+                    .where(member.id.eq(id))
+                    .execute());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//H2 메모리 DB 두 개를 primary/replica 로 사용
+class ReplicaRoutingDataSourceTest {
+
+    DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "sa", "");
+    DataSource replica = new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", "");
+
+    @AfterEach
+    public void after() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() throws Exception {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, Duration.ZERO);
+
+        assertThat(urlOf(routing)).contains("primary");
+
+        readOnlyTransaction();
+        assertThat(urlOf(routing)).contains("replica");
+    }
+
+    @Test
+    public void readAfterWriteStaysOnPrimaryWithinMaxLag() throws Exception {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, Duration.ofMinutes(1));
+
+        //트랜잭션 밖(autocommit) 쓰기는 실행 시점이 쓰기 시각
+        try (Connection connection = routing.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists routing_probe(id int)");
+        }
+
+        readOnlyTransaction();
+        assertThat(urlOf(routing)).contains("primary");
+    }
+
+    @Test
+    public void readWithoutWriteDoesNotPinPrimary() throws Exception {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, Duration.ofMinutes(1));
+
+        try (Connection connection = routing.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeQuery("select 1").close();
+        }
+
+        readOnlyTransaction();
+        assertThat(urlOf(routing)).contains("replica");
+    }
+
+    @Test
+    public void fallbackToPrimaryWhenReplicaIsDown() throws Exception {
+        DataSource down = new DriverManagerDataSource("jdbc:h2:mem:replica;IFEXISTS=TRUE;NO_SUCH_SETTING=1", "sa", "");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, down, Duration.ZERO);
+
+        readOnlyTransaction();
+        assertThat(urlOf(routing)).contains("primary");
+    }
+
+    private void readOnlyTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    private String urlOf(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.support.MutableClock;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static com.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+//JpaTransactionManager 를 거쳐 실제로 어느 DB 로 가는지 확인, replica 는 빈 메모리 DB. 시간은 MutableClock 으로 넘긴다
+@SpringBootTest(properties = {
+        "app.datasource.replica.url=jdbc:h2:mem:replica-it;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.username=sa",
+        "app.datasource.replica.max-lag=500ms",
+        "app.datasource.replica.hikari.maximum-pool-size=3",
+        "spring.datasource.hikari.pool-name=primary-pool"
+})
+class ReplicaRoutingTransactionTest {
+
+    static final Duration PAST_MAX_LAG = Duration.ofMillis(700);
+
+    @TestConfiguration
+    static class ClockConfig {
+        @Bean
+        MutableClock clock() {
+            return new MutableClock();
+        }
+    }
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MutableClock clock;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    HikariDataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    HikariDataSource replicaDataSource;
+
+    //라우팅을 켜도 풀 설정이 그대로 적용된다
+    @Test
+    public void poolSettingsAreBound() {
+        assertThat(primaryDataSource.getPoolName()).isEqualTo("primary-pool");
+        assertThat(replicaDataSource.getMaximumPoolSize()).isEqualTo(3);
+    }
+
+    @Test
+    public void readAfterCommittedWriteGoesToPrimary() throws Exception {
+        clock.advance(PAST_MAX_LAG);
+        assertThat(readOnly(this::databaseName)).containsIgnoringCase("replica");
+
+        write();
+
+        assertThat(readOnly(this::databaseName)).doesNotContainIgnoringCase("replica");
+    }
+
+    @Test
+    public void writeIsTimedAtCommit() throws Exception {
+        //maxLag 보다 오래 걸린 쓰기 트랜잭션도 커밋 직후의 읽기는 primary
+        readWrite(() -> {
+            updateNothing();
+            clock.advance(PAST_MAX_LAG);
+            return null;
+        });
+
+        assertThat(readOnly(this::databaseName)).doesNotContainIgnoringCase("replica");
+    }
+
+    @Test
+    public void readWriteTransactionWithoutDmlIsNotAWrite() throws Exception {
+        clock.advance(PAST_MAX_LAG);
+        readWrite(this::databaseName);
+
+        assertThat(readOnly(this::databaseName)).containsIgnoringCase("replica");
+    }
+
+    @Test
+    public void openSessionDoesNotKeepReplicaConnectionForWrites() throws Exception {
+        clock.advance(PAST_MAX_LAG);
+        //open-in-view 처럼 요청 동안 EntityManager 하나를 유지
+        EntityManager requestScoped = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(requestScoped));
+        try {
+            assertThat(readOnly(this::databaseName)).containsIgnoringCase("replica");
+            assertThat(readWrite(() -> {
+                updateNothing();
+                return databaseName();
+            })).doesNotContainIgnoringCase("replica");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            requestScoped.close();
+        }
+    }
+
+    private String databaseName() {
+        return (String) em.createNativeQuery("select database()").getSingleResult();
+    }
+
+    private void write() {
+        readWrite(() -> {
+            updateNothing();
+            return null;
+        });
+    }
+
+    //조건에 맞는 행은 없지만 DML 은 실행된다
+    private void updateNothing() {
+        queryFactory.update(member)
+                .set(member.age, member.age)
+                .where(member.username.eq("no-such-member"))
+                .execute();
+    }
+
+    private <T> T readOnly(Supplier<T> work) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx.execute(status -> work.get());
+    }
+
+    private <T> T readWrite(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+}
@@ -0,0 +1,39 @@
+package com.querydsl.config;
+
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.repository.MemberJpaRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.metrics.repository.enabled=true")
+@Transactional
+class RepositoryMetricsTest {
+
+    @Autowired
+    MeterRegistry registry;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void recordsPerMethodMetrics() {
+        memberJpaRepository.search(new MemberSearchCondition());
+
+        Timer timer = registry.find("repository.method")
+                .tags("class", "MemberJpaRepository", "method", "search")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+
+        DistributionSummary statements = registry.find("repository.method.statements")
+                .tags("class", "MemberJpaRepository", "method", "search")
+                .summary();
+        assertThat(statements.totalAmount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,133 @@
+package com.querydsl.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//expensive budget 을 1 로 줄여 자리 하나만 잡아 두면 거절되게 한다
+@SpringBootTest(properties = {
+        "app.search.limit.expensive.initial-limit=1",
+        "app.search.limit.expensive.min-limit=1",
+        "app.search.limit.expensive.max-limit=1",
+        "app.search.limit.expensive.max-queue=0",
+        "app.search.limit.retry-after=2s"
+})
+@AutoConfigureMockMvc
+class SearchConcurrencyLimitTest {
+
+    static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    SearchConcurrencyInterceptor interceptor;
+
+    @Test
+    public void saturatedBudgetIsRejectedWithRetryAfter() throws Exception {
+        AdaptiveConcurrencyLimiter expensive = interceptor.limiterFor(new MockHttpServletRequest());
+        assertThat(expensive.tryAcquire()).isTrue();
+        try {
+            mockMvc.perform(get("/v2/members").param("ageGoe", "10"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+            //회원명/팀명 검색은 별도 budget
+            mockMvc.perform(get("/v2/members").param("teamName", "teamA"))
+                    .andExpect(status().isOk());
+            //공백 회원명도 리포지토리에서는 조건이다
+            MockHttpServletRequest blankUsername = new MockHttpServletRequest();
+            blankUsername.setParameter("username", " ");
+            assertThat(interceptor.limiterFor(blankUsername)).isNotSameAs(expensive);
+        } finally {
+            expensive.release(FAST, false);
+        }
+        mockMvc.perform(get("/v2/members").param("ageGoe", "10"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void limitGrowsWhenFastAndShrinksWhenSlow() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 0);
+
+        //절반도 안 쓰고 있으면 늘리지 않는다
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        limiter.release(SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(4.5);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit()).isEqualTo(4.05);
+    }
+
+    @Test
+    public void limitStaysWithinBounds() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 0);
+        for (int i = 0; i < 50; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(SLOW, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        AdaptiveConcurrencyLimiter saturated = limiter(8, 0);
+        for (int i = 0; i < 8; i++) {
+            assertThat(saturated.tryAcquire()).isTrue();
+        }
+        for (int i = 0; i < 8; i++) {
+            saturated.release(FAST, false);
+        }
+        assertThat(saturated.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    public void excessRequestsAreQueuedThenRejected() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        //대기열 한 자리: 시간 안에 자리가 나지 않으면 거절
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.rejectedCount()).isEqualTo(1);
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            limiter.release(FAST, false);
+        });
+        releaser.start();
+        assertThat(limiter.tryAcquire()).isTrue();
+        releaser.join();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        assertThat(limiter.getQueued()).isZero();
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxQueue) {
+        SearchLimitProperties.Budget budget = new SearchLimitProperties.Budget(
+                initialLimit, 2, 8, Duration.ofMillis(100), maxQueue, Duration.ofMillis(500));
+        return new AdaptiveConcurrencyLimiter("test", budget, new SimpleMeterRegistry());
+    }
+}
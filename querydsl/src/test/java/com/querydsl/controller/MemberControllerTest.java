@@ -0,0 +1,82 @@
+package com.querydsl.controller;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void conditionalGetUsesDataVersion() throws Exception {
+        String etag = mockMvc.perform(get("/v1/members").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        //벌크 update 가 커밋되면 버전이 바뀐다
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(0))
+                .where(member.username.eq("no-such-member"))
+                .execute());
+
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    //"Aa" 와 "BB" 는 String.hashCode 가 같다
+    @Test
+    public void etagDistinguishesConditionsWithSameHashCode() throws Exception {
+        String aa = mockMvc.perform(get("/v1/members").param("username", "Aa"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String bb = mockMvc.perform(get("/v1/members").param("username", "BB"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(aa).isNotEqualTo(bb);
+        mockMvc.perform(get("/v1/members").param("username", "BB").header(HttpHeaders.IF_NONE_MATCH, aa))
+                .andExpect(status().isOk());
+    }
+
+    //ETag 는 Accept 원문이 아니라 실제로 협상된 응답 형식을 따른다
+    @Test
+    public void columnarEtagFollowsNegotiatedMediaType() throws Exception {
+        String cbor = mockMvc.perform(get("/v1/members").param("teamName", "teamA")
+                        .header(HttpHeaders.ACCEPT, MemberController.CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cborWithFallback = mockMvc.perform(get("/v1/members").param("teamName", "teamA")
+                        .header(HttpHeaders.ACCEPT, MemberController.CBOR + ", text/plain;q=0.1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String smile = mockMvc.perform(get("/v1/members").param("teamName", "teamA")
+                        .header(HttpHeaders.ACCEPT, MemberController.SMILE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(cborWithFallback).isEqualTo(cbor);
+        assertThat(smile).isNotEqualTo(cbor);
+    }
+}
@@ -0,0 +1,38 @@
+package com.querydsl.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberColumnarDtoTest {
+
+    @Test
+    public void teamNamesAreDictionaryEncoded() {
+        MemberColumnarDto columnar = new MemberColumnarDto(List.of(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, 2L, "teamB"),
+                new MemberTeamDto(3L, "member3", 30, 1L, "teamA"),
+                new MemberTeamDto(4L, "member4", 40, null, null)));
+
+        assertThat(columnar.getSize()).isEqualTo(4);
+        assertThat(columnar.getTeamIds()).containsExactly(1L, 2L);
+        assertThat(columnar.getTeamNames()).containsExactly("teamA", "teamB");
+        assertThat(columnar.getTeamIndex()).containsExactly(0, 1, 0, -1);
+        assertThat(columnar.getAge()).containsExactly(10, 20, 30, 40);
+        assertThat(columnar.getUsername()).containsExactly("member1", "member2", "member3", "member4");
+    }
+
+    //이름이 같아도 다른 팀이면 사전에 따로 들어간다
+    @Test
+    public void teamsWithSameNameStayDistinct() {
+        MemberColumnarDto columnar = new MemberColumnarDto(List.of(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, 2L, "teamA")));
+
+        assertThat(columnar.getTeamIds()).containsExactly(1L, 2L);
+        assertThat(columnar.getTeamNames()).containsExactly("teamA", "teamA");
+        assertThat(columnar.getTeamIndex()).containsExactly(0, 1);
+    }
+}
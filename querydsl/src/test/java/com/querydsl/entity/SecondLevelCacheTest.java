@@ -0,0 +1,119 @@
+package com.querydsl.entity;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//2차 캐시는 커밋 이후, 다른 영속성 컨텍스트에서 보이므로 테스트 트랜잭션(롤백)을 쓰지 않는다
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Statistics statistics;
+    Long teamId;
+    Long memberId;
+    List<Long> addedMemberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("cacheTeam");
+            em.persist(team);
+            Member member = new Member("cacheMember", 10, team);
+            em.persist(member);
+            teamId = team.getId();
+            memberId = member.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            addedMemberIds.forEach(id -> em.remove(em.find(Member.class, id)));
+            em.remove(em.find(Member.class, memberId));
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    public void findHitsSecondLevelCache() {
+        EntityManager other = emf.createEntityManager();
+        try {
+            statistics.clear();
+            Member member = other.find(Member.class, memberId);
+            //지연 로딩 프록시 초기화도 캐시에서
+            assertThat(member.getTeam().getName()).isEqualTo("cacheTeam");
+
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void memberInsertEvictsTeamMembersCache() {
+        //컬렉션 캐시를 채운다
+        assertThat(inOtherEntityManager(other -> other.find(Team.class, teamId).getMembers().size())).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = new Member("cacheMember2", 20, em.find(Team.class, teamId));
+            em.persist(member);
+            addedMemberIds.add(member.getId());
+        });
+
+        assertThat(inOtherEntityManager(other -> other.find(Team.class, teamId).getMembers().size())).isEqualTo(2);
+    }
+
+    @Test
+    public void changeTeamEvictsTeamMembersCache() {
+        Long otherTeamId = transactionTemplate.execute(status -> {
+            Team team = new Team("cacheTeam2");
+            em.persist(team);
+            Member member = new Member("cacheMember3", 30, team);
+            em.persist(member);
+            addedMemberIds.add(member.getId());
+            return team.getId();
+        });
+        assertThat(inOtherEntityManager(other -> other.find(Team.class, teamId).getMembers().size())).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, addedMemberIds.get(0)).changeTeam(em.find(Team.class, teamId)));
+
+        assertThat(inOtherEntityManager(other -> other.find(Team.class, teamId).getMembers().size())).isEqualTo(2);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, addedMemberIds.remove(0)));
+            em.remove(em.find(Team.class, otherTeamId));
+        });
+    }
+
+    private <T> T inOtherEntityManager(Function<EntityManager, T> work) {
+        EntityManager other = emf.createEntityManager();
+        try {
+            return work.apply(other);
+        } finally {
+            other.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.querydsl.repository;
+
+import com.querydsl.config.SqlStatementInspector;
+import com.querydsl.dto.BulkProgress;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberTeamDto;
+import com.querydsl.dto.MemberUpdateSpec;
+import com.querydsl.entity.Member;
+import com.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static com.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//청크마다 커밋하므로 테스트 트랜잭션을 쓰지 않고 직접 정리한다
+@SpringBootTest(properties = "app.bulk.chunk-size=10")
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    MemberBulkRepository bulkRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    SqlStatementInspector inspector;
+
+    Team team;
+
+    @BeforeEach
+    public void setUp() {
+        team = teamRepository.save(new Team("bulkTeam"));
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Member member = new Member("bulk" + i, i);
+            member.setTeam(team);
+            members.add(member);
+        }
+        memberJpaRepository.saveAll(members);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bulkRepository.delete(teamCondition(null), progress -> {
+        });
+        teamRepository.deleteById(team.getId());
+    }
+
+    @Test
+    public void updateInChunks() {
+        MemberUpdateSpec spec = new MemberUpdateSpec();
+        spec.setUsername("bulk-updated");
+        spec.setAgeDelta(100);
+        List<BulkProgress> reports = new ArrayList<>();
+
+        //나이 조건에 걸리는 컬럼을 바꿔도 같은 행을 두 번 처리하지 않는다
+        BulkProgress result = bulkRepository.update(teamCondition(5), spec, reports::add);
+
+        assertThat(result.getRows()).isEqualTo(20);
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(reports).extracting(BulkProgress::getRows).containsExactly(10L, 20L);
+
+        List<MemberTeamDto> updated = memberJpaRepository.search(teamCondition(null));
+        assertThat(updated).filteredOn(m -> m.getUsername().equals("bulk-updated"))
+                .hasSize(20)
+                .allMatch(m -> m.getAge() >= 105);
+        assertThat(updated).filteredOn(m -> m.getAge() < 5).hasSize(5);
+    }
+
+    @Test
+    public void deleteInChunks() {
+        BulkProgress result = bulkRepository.delete(teamCondition(20), progress -> {
+        });
+
+        assertThat(result.getRows()).isEqualTo(5);
+        assertThat(result.getChunks()).isEqualTo(1);
+        assertThat(memberJpaRepository.search(teamCondition(null))).hasSize(20);
+    }
+
+    //id 를 읽은 뒤 다른 트랜잭션이 조건 컬럼을 바꾸면 그 행은 지우지 않고, 진행 건수에도 넣지 않는다
+    @Test
+    public void deleteRechecksConditionForChunk() {
+        AtomicBoolean changed = new AtomicBoolean();
+        Consumer<String> concurrentUpdate = sql -> {
+            if (sql.startsWith("delete from member") && changed.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> queryFactory
+                        .update(member)
+                        .set(member.age, 0)
+                        .where(member.username.eq("bulk24"))
+                        .execute())).join();
+            }
+        };
+        inspector.addListener(concurrentUpdate);
+        BulkProgress result;
+        try {
+            result = bulkRepository.delete(teamCondition(20), progress -> {
+            });
+        } finally {
+            inspector.removeListener(concurrentUpdate);
+        }
+
+        assertThat(changed).isTrue();
+        assertThat(result.getRows()).isEqualTo(4);
+        assertThat(memberJpaRepository.search(teamCondition(null)))
+                .extracting(MemberTeamDto::getUsername)
+                .hasSize(21)
+                .contains("bulk24");
+    }
+
+    @Test
+    public void rejectsSurroundingTransaction() {
+        MemberUpdateSpec spec = new MemberUpdateSpec();
+        spec.setAge(1);
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(
+                status -> bulkRepository.update(teamCondition(null), spec, progress -> {
+                })))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    @Test
+    public void rejectsEmptySpec() {
+        assertThatThrownBy(() -> bulkRepository.update(teamCondition(null), new MemberUpdateSpec(), progress -> {
+        })).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private MemberSearchCondition teamCondition(Integer ageGoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeam");
+        condition.setAgeGoe(ageGoe);
+        return condition;
+    }
+}
@@ -0,0 +1,154 @@
+package com.querydsl.repository;
+
+import com.querydsl.config.MemberDataChangedEvent;
+import com.querydsl.dto.EstimatedPage;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberTeamDto;
+import com.querydsl.entity.Member;
+import com.querydsl.entity.QTeam;
+import com.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static com.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+//히스토그램은 커밋된 데이터(로컬 초기 데이터)로 만들어지므로 테스트 트랜잭션을 쓰지 않는다
+@SpringBootTest(properties = {"app.search.estimate.threshold=0", "app.search.estimate.bucket-width=10"})
+class MemberCountEstimatorTest {
+
+    @Autowired
+    MemberCountEstimator estimator;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void refresh() {
+        estimator.refresh();
+    }
+
+    @Test
+    public void estimateWithinErrorBound() {
+        assertWithinBound(condition(null, null, null));
+        assertWithinBound(condition("teamA", 15, 42));
+        assertWithinBound(condition(null, 3, null));
+        assertWithinBound(condition("no-such-team", null, null));
+    }
+
+    @Test
+    public void alignedBucketsAreExact() {
+        MemberSearchCondition condition = condition("teamB", 10, 39);
+        MemberCountEstimator.Estimate estimate = estimator.estimate(condition).orElseThrow();
+
+        assertThat(estimate.getErrorBound()).isZero();
+        assertThat(estimate.getCount()).isEqualTo(exactCount(condition));
+    }
+
+    @Test
+    public void usernameForcesExactCount() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(estimator.estimate(condition)).isEmpty();
+        condition.setUsername(" ");
+        assertThat(estimator.estimate(condition)).isEmpty();
+        condition.setUsername("member1");
+        EstimatedPage<MemberTeamDto> page = memberRepository.searchPageEstimated(condition, PageRequest.of(0, 1));
+        assertThat(page.isApproximate()).isFalse();
+        assertThat(page.getTotalElements()).isEqualTo(exactCount(condition));
+    }
+
+    @Test
+    public void searchPageEstimated() {
+        MemberSearchCondition condition = condition(null, 5, 94);
+        EstimatedPage<MemberTeamDto> page = memberRepository.searchPageEstimated(condition, PageRequest.of(0, 5));
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(page.isApproximate()).isTrue();
+        assertThat(Math.abs(page.getTotalElements() - exactCount(condition))).isLessThanOrEqualTo(page.getErrorBound());
+    }
+
+    @Test
+    public void partialPageIsExact() {
+        MemberSearchCondition condition = condition("teamA", null, null);
+        long total = exactCount(condition);
+        EstimatedPage<MemberTeamDto> page = memberRepository.searchPageEstimated(condition, PageRequest.of(0, (int) total + 10));
+
+        assertThat(page.isApproximate()).isFalse();
+        assertThat(page.getTotalElements()).isEqualTo(total);
+    }
+
+    //엔티티 변경 한 건마다 오차 범위가 1 넓어진다
+    @Test
+    public void entityChangesWidenErrorBound() {
+        MemberSearchCondition condition = condition("teamB", 10, 39);
+        long before = estimator.estimate(condition).orElseThrow().getErrorBound();
+
+        estimator.onDataChanged(MemberDataChangedEvent.entityChanged(
+                MemberDataChangedEvent.Change.INSERT, new Member("estimatorMember", 20)));
+
+        assertThat(estimator.estimate(condition).orElseThrow().getErrorBound()).isEqualTo(before + 1);
+    }
+
+    //벌크 변경 뒤에는 이전 히스토그램으로 추정하지 않는다 (다시 만들어졌으면 새 데이터 기준)
+    @Test
+    public void bulkChangeStopsStaleEstimates() {
+        Team team = transactionTemplate.execute(status -> {
+            Team t = new Team("estimatorBulkTeam");
+            em.persist(t);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("estimatorBulk" + i, 10, t));
+            }
+            return t;
+        });
+        try {
+            estimator.refresh();
+            MemberSearchCondition condition = condition("estimatorBulkTeam", 10, 19);
+            assertThat(estimator.estimate(condition).orElseThrow().getCount()).isEqualTo(10);
+
+            transactionTemplate.executeWithoutResult(status -> queryFactory
+                    .update(member)
+                    .set(member.age, 50)
+                    .where(member.team.id.eq(team.getId()))
+                    .execute());
+
+            estimator.estimate(condition).ifPresent(estimate ->
+                    assertThat(estimate.getCount()).isLessThanOrEqualTo(estimate.getErrorBound()));
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                queryFactory.delete(member).where(member.team.id.eq(team.getId())).execute();
+                queryFactory.delete(QTeam.team).where(QTeam.team.id.eq(team.getId())).execute();
+            });
+        }
+    }
+
+    private void assertWithinBound(MemberSearchCondition condition) {
+        MemberCountEstimator.Estimate estimate = estimator.estimate(condition).orElseThrow();
+        assertThat(Math.abs(estimate.getCount() - exactCount(condition))).isLessThanOrEqualTo(estimate.getErrorBound());
+    }
+
+    private long exactCount(MemberSearchCondition condition) {
+        return memberRepository.search(condition).size();
+    }
+
+    private MemberSearchCondition condition(String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -1,21 +1,42 @@
 package com.querydsl.repository;
 
+import com.querydsl.config.SqlStatementInspector;
+import com.querydsl.dto.KeysetCursor;
+import com.querydsl.dto.KeysetSlice;
 import com.querydsl.dto.MemberSearchCondition;
 import com.querydsl.dto.MemberTeamDto;
 import com.querydsl.entity.Member;
 
 
 import com.querydsl.entity.Team;
+import com.querydsl.support.StatementBudget;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+
+import static com.querydsl.support.StatementAssertions.assertStatements;
 
 @SpringBootTest
 @Transactional
@@ -29,73 +50,362 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberSearchQueryTemplates templates;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    SqlStatementInspector inspector;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Test
     public void basicTest() throws Exception {
         Member member = new Member("member1", 10);
         memberRepository.save(member);
-        Member member1 = memberRepository.findById(member.getId()).get();
+        em.flush();
+        Member member1 = assertStatements(inspector, 1, () -> memberRepository.findById(member.getId()).get());
 
         Assertions.assertThat(member).isEqualTo(member1);
 
-        List<Member> result1 = memberRepository.findAll();
-        List<Member> byUsername = memberRepository.findByUsername(member.getUsername());
+        List<Member> result1 = assertStatements(inspector, 1, () -> memberRepository.findAll());
+        List<Member> byUsername = assertStatements(inspector, 1, () -> memberRepository.findByUsername(member.getUsername()));
     }
 
     @Test
-    public void searchTest() throws Exception {
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
+    public void searchSliceTest() throws Exception {
+        Team teamA = new Team("sliceTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("slice" + i, 20 + i, teamA));
+        }
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sliceTeam");
+        condition.setAgeGoe(20);
+
+        KeysetSlice<MemberTeamDto> first = assertStatements(inspector, 1, () -> memberRepository.searchSlice(condition, KeysetCursor.first(), 2));
+        Assertions.assertThat(first.getContent()).extracting("username").containsExactly("slice0", "slice1");
+        Assertions.assertThat(first.isHasNext()).isTrue();
+
+        KeysetSlice<MemberTeamDto> second = assertStatements(inspector, 1, () -> memberRepository.searchSlice(condition, KeysetCursor.decode(first.getNextCursor()), 2));
+        Assertions.assertThat(second.getContent()).extracting("username").containsExactly("slice2", "slice3");
 
+        KeysetSlice<MemberTeamDto> last = assertStatements(inspector, 1, () -> memberRepository.searchSlice(condition, KeysetCursor.decode(second.getNextCursor()), 2));
+        Assertions.assertThat(last.getContent()).extracting("username").containsExactly("slice4");
+        Assertions.assertThat(last.isHasNext()).isFalse();
+        Assertions.assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void searchPageCountQueryTest() throws Exception {
+        Team teamA = new Team("countTeam");
         em.persist(teamA);
-        em.persist(teamB);
+        for (int i = 0; i < 4; i++) {
+            em.persist(new Member("count" + i, 30 + i, teamA));
+        }
+        em.flush();
+        em.clear();
 
-        Member member1 = new Member("member1",10,teamA);
-        Member member2 = new Member("member2",11,teamB);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("countTeam");
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
 
-        Member member3 = new Member("member3",13,teamA);
-        Member member4 = new Member("member4",14,teamB);
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
+        //첫 페이지가 pageSize 보다 작으면 count 쿼리 생략
+        statistics.clear();
+        Page<MemberTeamDto> shortPage = memberRepository.searchPage(condition, PageRequest.of(0, 10));
+        Assertions.assertThat(shortPage.getTotalElements()).isEqualTo(4);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        //가득 찬 페이지면 content + count
+        statistics.clear();
+        Page<MemberTeamDto> fullPage = memberRepository.searchPage(condition, PageRequest.of(0, 2));
+        Assertions.assertThat(fullPage.getTotalElements()).isEqualTo(4);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    //MemberRepository 의 search/searchPage 는 조건 조합별로 캐시된 JPQL 을 쓴다
+    @Test
+    public void searchUsesQueryTemplates() throws Exception {
+        Team teamA = new Team("templateTeam");
+        em.persist(teamA);
+        em.persist(new Member("template1", 50, teamA));
+        em.persist(new Member("template2", 60, teamA));
+        em.flush();
 
         MemberSearchCondition condition = new MemberSearchCondition();
-        //조건이 모두 널일 경우 조건없이 모두 가져오기 때문에 주의
-        condition.setAgeGoe(13);
-        condition.setAgeLoe(14);
-        condition.setTeamName("teamB");
-        
-
-       // List<MemberTeamDto> result = memberJpaRepository.searchByBuilder(condition);
-        //List<MemberTeamDto> result = memberJpaRepository.search(condition);
-        List<MemberTeamDto> result = memberRepository.search(condition);
-        Assertions.assertThat(result).extracting("username").containsExactly("member4");
+        condition.setTeamName("templateTeam");
+        condition.setAgeGoe(55);
+
+        List<MemberTeamDto> first = assertStatements(inspector, 1, () -> memberRepository.search(condition));
+        Assertions.assertThat(first).extracting("username").containsExactly("template2");
+        Assertions.assertThat(first).usingRecursiveComparison().isEqualTo(memberJpaRepository.search(condition));
+
+        //같은 조건 조합이면 템플릿 재사용, 설정과 상관없이 meter 로 노출된다
+        FunctionCounter hitCounter = meterRegistry.find("member.search.template").tag("result", "hit").functionCounter();
+        Assertions.assertThat(hitCounter).isNotNull();
+        long hits = templates.getHitCount();
+        condition.setAgeGoe(45);
+        List<MemberTeamDto> second = assertStatements(inspector, 1, () -> memberRepository.search(condition));
+        Assertions.assertThat(second).extracting("username").containsExactlyInAnyOrder("template1", "template2");
+        Assertions.assertThat(templates.getHitCount()).isEqualTo(hits + 1);
+        Assertions.assertThat(hitCounter.count()).isEqualTo(hits + 1);
+
+        //content + count 둘 다 템플릿
+        long lookups = templates.getHitCount() + templates.getMissCount();
+        memberRepository.searchPage(condition, PageRequest.of(0, 1));
+        Assertions.assertThat(templates.getHitCount() + templates.getMissCount()).isEqualTo(lookups + 2);
     }
 
     @Test
-    public void searchPageTest() throws Exception {
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
+    public void searchPageDeferredJoinTest() throws Exception {
+        Team teamA = new Team("deferredTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("deferred" + i, 80 + i, teamA));
+        }
+        em.flush();
 
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("deferredTeam");
+
+        //id 조회 + DTO 조회 + count
+        Page<MemberTeamDto> result = assertStatements(inspector, 3,
+                () -> memberRepository.searchPage(condition, PageRequest.of(1, 2), PagingStrategy.DEFERRED_JOIN));
+        Assertions.assertThat(result.getContent()).extracting("username").containsExactly("deferred2", "deferred3");
+        Assertions.assertThat(result.getContent()).extracting("teamName").containsOnly("deferredTeam");
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(5);
+    }
+
+    //두 전략 모두 pageable 정렬 + member.id 순서, 같은 나이는 id 순
+    @Test
+    public void searchPageStrategiesShareSortOrder() throws Exception {
+        Team teamA = new Team("sortTeam");
         em.persist(teamA);
-        em.persist(teamB);
+        em.persist(new Member("sort0", 30, teamA));
+        em.persist(new Member("sort1", 40, teamA));
+        em.persist(new Member("sort2", 30, teamA));
+        em.persist(new Member("sort3", 40, teamA));
+        em.persist(new Member("sort4", 20, teamA));
+        em.flush();
 
-        Member member1 = new Member("member1",10,teamA);
-        Member member2 = new Member("member2",11,teamB);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sortTeam");
 
-        Member member3 = new Member("member3",13,teamA);
-        Member member4 = new Member("member4",14,teamB);
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
+        for (PagingStrategy strategy : PagingStrategy.values()) {
+            List<String> usernames = new ArrayList<>();
+            for (int page = 0; page < 3; page++) {
+                Page<MemberTeamDto> result = memberRepository.searchPage(condition,
+                        PageRequest.of(page, 2, Sort.by(Sort.Direction.DESC, "age")), strategy);
+                result.getContent().forEach(dto -> usernames.add(dto.getUsername()));
+            }
+            Assertions.assertThat(usernames).as(strategy.name())
+                    .containsExactly("sort1", "sort3", "sort0", "sort2", "sort4");
+        }
+    }
 
+    @Test
+    public void searchPageRejectsUnknownSortProperty() throws Exception {
         MemberSearchCondition condition = new MemberSearchCondition();
-        PageRequest pageRequest = PageRequest.of(0,3);
+        for (PagingStrategy strategy : PagingStrategy.values()) {
+            Assertions.assertThatThrownBy(() -> memberRepository.searchPage(condition,
+                            PageRequest.of(0, 2, Sort.by("password")), strategy))
+                    //리포지토리 프록시가 InvalidDataAccessApiUsageException 으로 바꿀 수 있다
+                    .isInstanceOfAny(IllegalArgumentException.class, InvalidDataAccessApiUsageException.class)
+                    .hasMessageContaining("password");
+        }
+    }
+
+    //쓰기 트랜잭션(테스트) 안에서는 기본 메서드가 수정 가능한 엔티티를 돌려주고, ReadOnly 메서드만 조회 전용이다
+    @Test
+    public void entityQueriesAreReadOnlyOnlyWhenAsked() throws Exception {
+        Team team = new Team("readOnlyTeam");
+        em.persist(team);
+        em.persist(new Member("readOnly1", 10, team));
+        em.flush();
+        em.clear();
+
+        Session session = em.unwrap(Session.class);
+        Assertions.assertThat(memberRepository.findByUsernameReadOnly("readOnly1")).allMatch(session::isReadOnly);
+        Assertions.assertThat(memberRepository.findAllReadOnly()).allMatch(session::isReadOnly);
+        em.clear();
+
+        Member fromQuerydsl = memberJpaRepository.findByUsername("readOnly1").get(0);
+        Assertions.assertThat(session.isReadOnly(fromQuerydsl)).isFalse();
+        Assertions.assertThat(memberRepository.findByUsername("readOnly1")).noneMatch(session::isReadOnly);
+        Assertions.assertThat(memberJpaRepository.findAll()).noneMatch(session::isReadOnly);
+
+        fromQuerydsl.setAge(99);
+        em.flush();
+        em.clear();
+        Assertions.assertThat(memberJpaRepository.findByUsername("readOnly1").get(0).getAge()).isEqualTo(99);
+    }
+
+    //읽기 전용 트랜잭션이면 Spring(HibernateJpaDialect)이 세션을 default read-only + FlushMode.MANUAL 로 열므로
+    //리포지토리에서 따로 힌트를 붙이지 않아도 조회 전용 엔티티가 된다
+    @Test
+    public void readOnlyTransactionLoadsReadOnlyEntities() throws Exception {
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTx.setReadOnly(true);
+        readOnlyTx.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+
+        Boolean readOnly = readOnlyTx.execute(status -> {
+            Session session = em.unwrap(Session.class);
+            return memberJpaRepository.findByUsername("member1").stream().allMatch(session::isReadOnly)
+                    && memberJpaRepository.findAll().stream().allMatch(session::isReadOnly);
+        });
+        Assertions.assertThat(readOnly).isTrue();
+    }
+
+    @Test
+    public void saveAllBatchesInserts() throws Exception {
+        Team team = new Team("batchTeam");
+        em.persist(team);
+        em.flush();
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Member member = new Member("batch" + i, i % 50);
+            member.setTeam(team);
+            members.add(member);
+        }
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        Assertions.assertThat(memberJpaRepository.saveAll(members)).isEqualTo(120);
+
+        //insert 120건이 jdbc 배치로, 채번은 50개 단위 시퀀스 호출로
+        Assertions.assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(10);
+        Assertions.assertThat(em.contains(members.get(0))).isFalse();
+        //바깥 트랜잭션의 영속 엔티티는 detach 되지 않는다
+        Assertions.assertThat(em.contains(team)).isTrue();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("batchTeam");
+        Assertions.assertThat(memberJpaRepository.search(condition)).hasSize(120);
+    }
 
-        Page<MemberTeamDto> result = memberRepository.searchPageSimple(condition,pageRequest);
-        // Assertions.assertThat(result).extracting("username").containsExactly("member4");
+    //다른 커넥션에서 읽으므로 데이터를 커밋해야 보인다, SQL 도 다른 스레드에서 나가므로 실행 수는 세지 않는다
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchPageParallelTest() throws Exception {
+        Team team = transactionTemplate.execute(status -> {
+            Team t = new Team("parallelTeam");
+            em.persist(t);
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("parallel" + i, 70 + i, t));
+            }
+            return t;
+        });
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("parallelTeam");
+
+            Page<MemberTeamDto> result = memberRepository.searchPageParallel(condition, PageRequest.of(0, 2));
+            Assertions.assertThat(result.getContent()).hasSize(2);
+            Assertions.assertThat(result.getTotalElements()).isEqualTo(5);
+        } finally {
+            deleteTeamWithMembers(team.getId());
+        }
+    }
+
+    //unpaged 면 content 크기가 total 이므로 count 쿼리를 띄우지 않는다
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchPageParallelUnpagedSkipsCount() throws Exception {
+        Team team = transactionTemplate.execute(status -> {
+            Team t = new Team("parallelUnpagedTeam");
+            em.persist(t);
+            for (int i = 0; i < 3; i++) {
+                em.persist(new Member("parallelUnpaged" + i, 70 + i, t));
+            }
+            return t;
+        });
+        List<String> countStatements = Collections.synchronizedList(new ArrayList<>());
+        Consumer<String> listener = sql -> {
+            if (sql.contains("count(")) {
+                countStatements.add(sql);
+            }
+        };
+        inspector.addListener(listener);
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("parallelUnpagedTeam");
+
+            Page<MemberTeamDto> result = memberRepository.searchPageParallel(condition, Pageable.unpaged());
+            Assertions.assertThat(result.getContent()).hasSize(3);
+            Assertions.assertThat(result.getTotalElements()).isEqualTo(3);
+            Assertions.assertThat(countStatements).isEmpty();
+        } finally {
+            inspector.removeListener(listener);
+            deleteTeamWithMembers(team.getId());
+        }
+    }
+
+    //준비 데이터는 @BeforeEach 에서 만들어 테스트 메서드의 SQL 만 센다
+    @Nested
+    class WithinStatementBudget {
+
+        @BeforeEach
+        public void before() {
+            Team teamA = new Team("budgetTeamA");
+            Team teamB = new Team("budgetTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 11, teamB));
+            em.persist(new Member("member3", 13, teamA));
+            em.persist(new Member("member4", 14, teamB));
+            em.flush();
+        }
+
+        @Test
+        @StatementBudget(max = 1)
+        public void searchTest() throws Exception {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            //조건이 모두 널일 경우 조건없이 모두 가져오기 때문에 주의
+            condition.setAgeGoe(13);
+            condition.setAgeLoe(14);
+            condition.setTeamName("budgetTeamB");
+
+            List<MemberTeamDto> result = memberRepository.search(condition);
+            Assertions.assertThat(result).extracting("username").containsExactly("member4");
+        }
+
+        //fetchResults 는 count + content 2번
+        @Test
+        @StatementBudget(max = 2)
+        public void searchPageTest() throws Exception {
+            Page<MemberTeamDto> result = memberRepository.searchPageSimple(new MemberSearchCondition(), PageRequest.of(0, 3));
+            Assertions.assertThat(result.getContent()).hasSize(3);
+        }
+
+        @Test
+        @StatementBudget(max = 1)
+        public void streamTest() throws Exception {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("budgetTeamA");
+
+            List<MemberTeamDto> result = new ArrayList<>();
+            memberJpaRepository.stream(condition, 2, result::add);
+            Assertions.assertThat(result).extracting("username").containsExactlyInAnyOrder("member1", "member3");
+        }
+    }
 
+    private void deleteTeamWithMembers(Long teamId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id = :teamId")
+                    .setParameter("teamId", teamId)
+                    .executeUpdate();
+            em.remove(em.find(Team.class, teamId));
+        });
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.querydsl.repository;
+
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberTeamDto;
+import com.querydsl.entity.Member;
+import com.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//인덱스는 커밋된 데이터로 만들어지므로 테스트 트랜잭션을 쓰지 않는다
+@SpringBootTest(properties = "app.search.index.enabled=true")
+class MemberSearchIndexTest {
+
+    @Autowired
+    MemberSearchIndex index;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void waitUntilReady() throws InterruptedException {
+        for (int i = 0; i < 100 && !index.isReady(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(index.isReady()).isTrue();
+    }
+
+    @Test
+    public void sameResultAsDatabase() {
+        assertSameAsDatabase(new MemberSearchCondition());
+        assertSameAsDatabase(condition("member1", null, null, null));
+        assertSameAsDatabase(condition(null, "teamA", 10, 40));
+        assertSameAsDatabase(condition(null, null, null, 20));
+        assertSameAsDatabase(condition(null, "no-such-team", null, null));
+    }
+
+    @Test
+    public void searchPage() {
+        MemberSearchCondition condition = condition(null, null, 10, null);
+        Page<MemberTeamDto> page = index.searchPage(condition, PageRequest.of(1, 5)).orElseThrow();
+
+        List<MemberTeamDto> all = index.search(condition).orElseThrow();
+        assertThat(page.getTotalElements()).isEqualTo(all.size());
+        assertThat(page.getContent()).containsExactlyElementsOf(all.subList(5, Math.min(10, all.size())));
+        assertThat(index.footprintReport()).contains("per million members");
+    }
+
+    //엔티티 변경은 다시 만들지 않고 바로 반영되어야 한다
+    @Test
+    public void entityChangesAreAppliedAsDeltas() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long id = tx.execute(status -> {
+            Team teamA = em.createQuery("select t from Team t where t.name = 'teamA'", Team.class)
+                    .setMaxResults(1)
+                    .getSingleResult();
+            Member member = new Member("indexMember", 200, teamA);
+            em.persist(member);
+            return member.getId();
+        });
+        try {
+            assertThat(index.isReady()).isTrue();
+            assertSameAsDatabase(condition("indexMember", null, null, null));
+            assertSameAsDatabase(condition(null, "teamA", 150, null));
+
+            tx.executeWithoutResult(status -> {
+                Member member = em.find(Member.class, id);
+                member.setUsername("indexMember2");
+                member.setAge(201);
+            });
+            assertThat(index.isReady()).isTrue();
+            assertThat(index.search(condition("indexMember", null, null, null)).orElseThrow()).isEmpty();
+            assertSameAsDatabase(condition("indexMember2", null, null, null));
+            assertSameAsDatabase(new MemberSearchCondition());
+        } finally {
+            tx.executeWithoutResult(status -> em.remove(em.find(Member.class, id)));
+        }
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search(condition("indexMember2", null, null, null)).orElseThrow()).isEmpty();
+        assertSameAsDatabase(new MemberSearchCondition());
+    }
+
+    private void assertSameAsDatabase(MemberSearchCondition condition) {
+        assertThat(index.search(condition).orElseThrow())
+                .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+    }
+
+    private MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
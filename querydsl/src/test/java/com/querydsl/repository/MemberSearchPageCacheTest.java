@@ -0,0 +1,92 @@
+package com.querydsl.repository;
+
+import com.querydsl.config.MemberDataChangedEvent;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberSearchKey;
+import com.querydsl.dto.MemberTeamDto;
+import com.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+//무효화는 커밋 이후에 일어나므로 테스트 트랜잭션을 쓰지 않는다
+@SpringBootTest
+class MemberSearchPageCacheTest {
+
+    @Autowired
+    MemberSearchPageCache pageCache;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    MemberSearchKey key = MemberSearchKey.of(new MemberSearchCondition(), PageRequest.of(0, 10));
+    AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void cachedUntilBulkUpdate() {
+        load();
+        load();
+        assertThat(loads.get()).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.eq("no-such-member"))
+                .execute());
+
+        load();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidatedByEntityWrite() {
+        load();
+        Team team = transactionTemplate.execute(status -> {
+            Team t = new Team("pageCacheTeam");
+            em.persist(t);
+            return t;
+        });
+        assertThat(pageCache.size()).isZero();
+
+        load();
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Team.class, team.getId())));
+        assertThat(pageCache.size()).isZero();
+    }
+
+    //읽는 도중에 무효화되면 그 결과는 담지 않는다
+    @Test
+    public void pageLoadedBeforeChangeIsNotCached() {
+        pageCache.onDataChanged(new MemberDataChangedEvent("Member", true));
+        pageCache.get(key, () -> {
+            loads.incrementAndGet();
+            pageCache.onDataChanged(new MemberDataChangedEvent("Member", true));
+            return new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
+        });
+        assertThat(pageCache.size()).isZero();
+
+        load();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Page<MemberTeamDto> load() {
+        return pageCache.get(key, () -> {
+            loads.incrementAndGet();
+            return new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
+        });
+    }
+}
@@ -0,0 +1,144 @@
+package com.querydsl.repository;
+
+import com.querydsl.config.MemberDataChangedEvent;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.dto.MemberSearchKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//여러 스레드에서 동시에 부르므로 테스트 트랜잭션을 쓰지 않는다
+@SpringBootTest
+class MemberSearchSingleFlightTest {
+
+    static final int CALLERS = 16;
+
+    @Autowired
+    MemberSearchSingleFlight singleFlight;
+
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentIdenticalSearchesShareOneLoad() throws Exception {
+        double coalescedBefore = singleFlight.coalescedCount();
+        MemberSearchKey key = key("singleFlightTeam");
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("rows", key, this::blockingLoad)));
+        }
+        //첫 요청이 조회하는 동안 나머지가 모두 붙을 때까지 기다렸다가 조회를 끝낸다
+        awaitCoalesced(coalescedBefore + CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void differentKeysAreNotShared() {
+        release.countDown();
+        singleFlight.execute("rows", key("teamA"), this::blockingLoad);
+        singleFlight.execute("rows", key("teamB"), this::blockingLoad);
+        singleFlight.execute("page", key("teamB"), this::blockingLoad);
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void failureIsSharedAndForgotten() throws Exception {
+        double coalescedBefore = singleFlight.coalescedCount();
+        MemberSearchKey key = key("failingTeam");
+        Future<Object> first = executor.submit(() -> singleFlight.execute("rows", key, () -> {
+            blockingLoad();
+            throw new IllegalStateException("query failed");
+        }));
+        Future<Object> second = executor.submit(() -> singleFlight.execute("rows", key, () -> "unused"));
+        awaitCoalesced(coalescedBefore + 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        //끝난 조회는 남지 않는다
+        assertThat(singleFlight.execute("rows", key, () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    public void dataChangeStartsNewFlight() throws Exception {
+        MemberSearchKey key = key("changedTeam");
+        Future<String> before = executor.submit(() -> singleFlight.execute("rows", key, this::blockingLoad));
+        while (loads.get() == 0) {
+            Thread.sleep(10);
+        }
+        singleFlight.onDataChanged(new MemberDataChangedEvent("Member", false));
+
+        assertThat(singleFlight.execute("rows", key, () -> "after change")).isEqualTo("after change");
+        release.countDown();
+        assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+    }
+
+    //먼저 온 조회가 끝나지 않아도 붙은 요청은 timeout 까지만 기다린다
+    @Test
+    public void waitingIsBoundedByTimeout() throws Exception {
+        MemberSearchSingleFlight bounded = new MemberSearchSingleFlight(new SimpleMeterRegistry(), Duration.ofMillis(100));
+        MemberSearchKey key = key("slowTeam");
+        Future<String> first = executor.submit(() -> bounded.execute("rows", key, this::blockingLoad));
+        while (loads.get() == 0) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> bounded.execute("rows", key, () -> "unused"))
+                .isInstanceOf(QueryTimeoutException.class);
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+    }
+
+    private String blockingLoad() {
+        loads.incrementAndGet();
+        try {
+            assertThat(release.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "result";
+    }
+
+    private void awaitCoalesced(double expected) throws InterruptedException {
+        for (int i = 0; i < 500 && singleFlight.coalescedCount() < expected; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(singleFlight.coalescedCount()).isGreaterThanOrEqualTo(expected);
+    }
+
+    private MemberSearchKey key(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return MemberSearchKey.of(condition);
+    }
+}
@@ -0,0 +1,123 @@
+package com.querydsl.repository;
+
+import com.querydsl.config.SqlStatementInspector;
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.support.StatementRecorder;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 검색 조건 16가지 조합으로 searchPage 가 실제로 만든 SQL 의 H2 실행 계획을 확인한다.
+ * 조건이 하나라도 있으면 member 테이블 풀스캔이 나오면 안 된다.
+ */
+@SpringBootTest
+@Transactional
+class SearchQueryPlanTest {
+
+    //바인딩 파라미터 앞의 SQL 로 어떤 값인지 판단한다 (나머지는 limit/offset)
+    static final Pattern PARAMETER = Pattern.compile("(username\\s*=|name\\s*=|age\\s*>=|age\\s*<=)?\\s*\\?");
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    SqlStatementInspector inspector;
+
+    @Test
+    public void memberFiltersUseIndex() {
+        for (int shape = 1; shape < 16; shape++) {
+            for (String plan : explainSearchPage(shape)) {
+                assertThat(plan).as("shape %d: %s", shape, plan).doesNotContainIgnoringCase("MEMBER.tableScan");
+            }
+        }
+    }
+
+    //팀 이름 조건은 inner join 이라 team 을 idx_team_name 으로 먼저 찾고 member 는 team_id 로 찾는다
+    @Test
+    public void teamNameDrivesJoin() {
+        for (String plan : explainSearchPage(MemberSearchQueryTemplates.TEAM_NAME)) {
+            assertThat(plan).as(plan)
+                    .containsIgnoringCase("IDX_TEAM_NAME")
+                    .doesNotContainIgnoringCase("TEAM.tableScan");
+        }
+    }
+
+    @Test
+    public void teamNameUsesIndex() {
+        String plan = (String) em.createNativeQuery("explain select t.team_id from team t where t.name = 'teamA'")
+                .getSingleResult();
+        assertThat(plan).containsIgnoringCase("IDX_TEAM_NAME");
+    }
+
+    //content 쿼리와 (실행됐다면) count 쿼리의 실행 계획
+    private List<String> explainSearchPage(int shape) {
+        List<String> statements;
+        try (StatementRecorder recorder = StatementRecorder.start(inspector)) {
+            memberRepository.searchPage(condition(shape), PageRequest.of(0, 1));
+            statements = recorder.getStatements();
+        }
+        assertThat(statements).as("shape %d", shape).isNotEmpty();
+        return statements.stream().map(this::explain).collect(Collectors.toList());
+    }
+
+    private String explain(String sql) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                Matcher matcher = PARAMETER.matcher(sql);
+                int index = 1;
+                while (matcher.find()) {
+                    statement.setObject(index++, parameterValue(matcher.group(1)));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+    }
+
+    private static Object parameterValue(String predicate) {
+        if (predicate == null) {
+            return 1;
+        }
+        if (predicate.startsWith("username")) {
+            return "member1";
+        }
+        if (predicate.startsWith("name")) {
+            return "teamA";
+        }
+        return predicate.contains(">=") ? 10 : 20;
+    }
+
+    private static MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & MemberSearchQueryTemplates.USERNAME) != 0) {
+            condition.setUsername("member1");
+        }
+        if ((shape & MemberSearchQueryTemplates.TEAM_NAME) != 0) {
+            condition.setTeamName("teamA");
+        }
+        if ((shape & MemberSearchQueryTemplates.AGE_GOE) != 0) {
+            condition.setAgeGoe(10);
+        }
+        if ((shape & MemberSearchQueryTemplates.AGE_LOE) != 0) {
+            condition.setAgeLoe(20);
+        }
+        return condition;
+    }
+}
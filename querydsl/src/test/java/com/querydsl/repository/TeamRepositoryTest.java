@@ -0,0 +1,96 @@
+package com.querydsl.repository;
+
+import com.querydsl.config.SqlStatementInspector;
+import com.querydsl.dto.TeamWithMembersDto;
+import com.querydsl.entity.Member;
+import com.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.support.StatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.querydsl.entity.QMember.member;
+import static com.querydsl.entity.QTeam.team;
+import static com.querydsl.support.StatementAssertions.assertStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    SqlStatementInspector inspector;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 3; i++) {
+            Team t = new Team("batchTeam" + i);
+            em.persist(t);
+            for (int j = 0; j < 2; j++) {
+                em.persist(new Member("batch" + i + "-" + j, 20 + j, t));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void findTeamsWithMembers() {
+        long total = teamRepository.count();
+        Map<Long, Long> memberCounts = queryFactory
+                .select(member.team.id, member.count())
+                .from(member)
+                .groupBy(member.team.id)
+                .fetch().stream()
+                .filter(row -> row.get(member.team.id) != null)
+                .collect(Collectors.toMap(row -> row.get(member.team.id), row -> row.get(member.count())));
+        em.clear();
+
+        Page<TeamWithMembersDto> page;
+        List<String> statements;
+        try (StatementRecorder recorder = StatementRecorder.start(inspector)) {
+            page = teamRepository.findTeamsWithMembers(PageRequest.of(0, 2));
+            statements = recorder.getStatements();
+        }
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(total);
+        for (TeamWithMembersDto t : page.getContent()) {
+            assertThat(t.getMembers()).as(t.getName())
+                    .hasSize(memberCounts.getOrDefault(t.getTeamId(), 0L).intValue())
+                    .allMatch(m -> m.getTeamId().equals(t.getTeamId()));
+        }
+        assertThat(page.getContent()).flatExtracting(TeamWithMembersDto::getMembers).isNotEmpty();
+        //팀 페이지 + 회원 IN 조회 + count, 팀마다 회원 조회가 나가지 않는다
+        assertThat(statements).hasSize(3);
+        assertThat(statements).filteredOn(sql -> sql.contains(" in (")).hasSize(1);
+    }
+
+    @Test
+    public void lazyMembersAreBatchFetched() {
+        //default_batch_fetch_size 로 팀마다가 아니라 한번에 초기화
+        assertStatements(inspector, 2, () -> {
+            List<Team> teams = queryFactory
+                    .selectFrom(team)
+                    .where(team.name.startsWith("batchTeam"))
+                    .fetch();
+            teams.forEach(t -> assertThat(t.getMembers()).hasSize(2));
+        });
+    }
+}
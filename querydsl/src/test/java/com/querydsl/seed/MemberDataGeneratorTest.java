@@ -0,0 +1,76 @@
+package com.querydsl.seed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MemberDataGeneratorTest {
+
+    @Test
+    public void teamNames() {
+        assertThat(MemberDataGenerator.teamName(0)).isEqualTo("teamA");
+        assertThat(MemberDataGenerator.teamName(1)).isEqualTo("teamB");
+        assertThat(MemberDataGenerator.teamName(25)).isEqualTo("teamZ");
+        assertThat(MemberDataGenerator.teamName(26)).isEqualTo("teamAA");
+        assertThat(MemberDataGenerator.teamName(27)).isEqualTo("teamAB");
+    }
+
+    //기본값은 예전 InitMember 데이터와 같다
+    @Test
+    public void defaultsMatchLegacySeed() {
+        MemberDataGenerator.Sampler sampler = new MemberDataGenerator.Sampler(new SeedProperties());
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(sampler.age(i)).isEqualTo(i);
+            assertThat(sampler.team(i)).isEqualTo(i % 2);
+        }
+    }
+
+    @Test
+    public void zipfSkewIsDeterministic() {
+        SeedProperties spec = new SeedProperties();
+        spec.setTeams(10);
+        spec.setTeamSkew(1.5);
+        spec.setAgeDistribution(SeedProperties.AgeDistribution.NORMAL);
+
+        int[] first = sample(spec, 10_000);
+        int[] second = sample(spec, 10_000);
+        assertThat(first).isEqualTo(second);
+
+        long[] perTeam = new long[10];
+        IntStream.of(first).forEach(team -> perTeam[team]++);
+        //1.5 지수면 teamA 가 절반 가량, 뒤로 갈수록 줄어든다
+        assertThat(perTeam[0]).isBetween(4_000L, 6_000L);
+        assertThat(perTeam[0]).isGreaterThan(perTeam[1]);
+        assertThat(perTeam[1]).isGreaterThan(perTeam[9]);
+    }
+
+    @Test
+    public void normalAgesStayInRange() {
+        SeedProperties spec = new SeedProperties();
+        spec.setAgeDistribution(SeedProperties.AgeDistribution.NORMAL);
+        spec.setMaxAge(60);
+        MemberDataGenerator.Sampler sampler = new MemberDataGenerator.Sampler(spec);
+
+        double sum = 0;
+        for (int i = 0; i < 10_000; i++) {
+            int age = sampler.age(i);
+            assertThat(age).isBetween(0, 60);
+            sum += age;
+        }
+        assertThat(sum / 10_000).isCloseTo(35, within(1.0));
+    }
+
+    private int[] sample(SeedProperties spec, int count) {
+        MemberDataGenerator.Sampler sampler = new MemberDataGenerator.Sampler(spec);
+        int[] teams = new int[count];
+        for (int i = 0; i < count; i++) {
+            sampler.age(i);
+            teams[i] = sampler.team(i);
+        }
+        return teams;
+    }
+}
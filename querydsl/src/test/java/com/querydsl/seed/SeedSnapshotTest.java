@@ -0,0 +1,150 @@
+package com.querydsl.seed;
+
+import com.querydsl.dto.BulkProgress;
+import com.querydsl.entity.Member;
+import com.querydsl.repository.MemberJpaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//테이블을 비우므로 다른 테스트와 공유하지 않는 메모리 DB 를 쓴다
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot-test;DB_CLOSE_DELAY=-1",
+        "app.seed.snapshot=build/snapshot-test/seed.snapshot",
+        "app.seed.members=250",
+        "app.seed.teams=3",
+        "app.seed.team-skew=1.0"})
+class SeedSnapshotTest {
+
+    static final Path SNAPSHOT = Path.of("build/snapshot-test/seed.snapshot");
+
+    @Autowired
+    SeedSnapshot snapshot;
+    @Autowired
+    SeedProperties properties;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void restoreSameRows() throws Exception {
+        //시작할 때 생성 또는 복원된 데이터가 스냅샷으로 남아 있다
+        assertThat(Files.isRegularFile(SNAPSHOT)).isTrue();
+        String before = dump();
+
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+        BulkProgress restored = snapshot.restore(SNAPSHOT, properties.fingerprint()).orElseThrow();
+
+        assertThat(restored.getRows()).isEqualTo(250);
+        assertThat(dump()).isEqualTo(before);
+
+        //복원한 id 뒤에서 채번이 이어진다
+        Long maxId = jdbcTemplate.queryForObject("select max(member_id) from member", Long.class);
+        Member member = transactionTemplate.execute(status -> {
+            Member m = new Member("afterRestore", 1);
+            memberJpaRepository.save(m);
+            return m;
+        });
+        assertThat(member.getId()).isGreaterThan(maxId);
+    }
+
+    @Test
+    public void staleSnapshotIsIgnored() throws Exception {
+        assertThat(snapshot.restore(SNAPSHOT, "other-settings")).isEmpty();
+        assertThat(snapshot.restore(SNAPSHOT.resolveSibling("missing.snapshot"), properties.fingerprint())).isEmpty();
+    }
+
+    //잘린 파일은 아무것도 넣기 전에 실패한다
+    @Test
+    public void truncatedSnapshotIsRejectedBeforeInsert() throws Exception {
+        byte[] bytes = Files.readAllBytes(SNAPSHOT);
+        Path truncated = SNAPSHOT.resolveSibling("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 5));
+        String before = dump();
+
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+        try {
+            assertThatThrownBy(() -> snapshot.restore(truncated, properties.fingerprint()))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("truncated or corrupt");
+            assertThat(jdbcTemplate.queryForObject("select count(*) from team", Long.class)).isZero();
+            assertThat(jdbcTemplate.queryForObject("select count(*) from member", Long.class)).isZero();
+        } finally {
+            snapshot.restore(SNAPSHOT, properties.fingerprint());
+        }
+        assertThat(dump()).isEqualTo(before);
+    }
+
+    //이미 데이터가 있으면 아무것도 지우지 않고 실패한다
+    @Test
+    public void restoreIntoNonEmptyTablesKeepsRows() throws Exception {
+        String before = dump();
+
+        assertThatThrownBy(() -> snapshot.restore(SNAPSHOT, properties.fingerprint()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(dump()).isEqualTo(before);
+    }
+
+    //넣다가 실패하면(없는 팀을 가리키는 회원) 이번에 넣은 행만 지운다
+    @Test
+    public void failedInsertRemovesPartialRestore() throws Exception {
+        Path broken = SNAPSHOT.resolveSibling("broken.snapshot");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(broken))) {
+            out.writeInt(0x51534e50);
+            out.writeInt(1);
+            writeString(out, properties.fingerprint());
+            out.writeByte(1);
+            out.writeLong(1);
+            writeString(out, "brokenTeam");
+            out.writeByte(0);
+            out.writeByte(1);
+            out.writeLong(1);
+            writeString(out, "brokenMember");
+            out.writeInt(10);
+            out.writeLong(999_999);
+            out.writeByte(0);
+        }
+        String before = dump();
+
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+        try {
+            assertThatThrownBy(() -> snapshot.restore(broken, properties.fingerprint()))
+                    .isInstanceOf(DataAccessException.class);
+            assertThat(jdbcTemplate.queryForObject("select count(*) from team", Long.class)).isZero();
+            assertThat(jdbcTemplate.queryForObject("select count(*) from member", Long.class)).isZero();
+        } finally {
+            snapshot.restore(SNAPSHOT, properties.fingerprint());
+        }
+        assertThat(dump()).isEqualTo(before);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String dump() {
+        return jdbcTemplate.queryForList("select team_id, name from team order by team_id").toString()
+                + jdbcTemplate.queryForList("select member_id, username, age, team_id from member order by member_id");
+    }
+}
@@ -0,0 +1,47 @@
+package com.querydsl.support;
+
+import com.querydsl.config.SqlStatementInspector;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL 실행 횟수 검증.
+ * <pre>
+ * List&lt;MemberTeamDto&gt; result = assertStatements(inspector, 2, () -&gt; repository.searchPage(...));
+ * </pre>
+ * 최대 실행 수를 넘거나 같은 select 가 반복되면(N+1) 실패한다.
+ * 지연 쓰기된 insert 가 같이 세어지지 않도록 호출 전에 em.flush() 해둔다.
+ */
+public final class StatementAssertions {
+
+    private StatementAssertions() {
+    }
+
+    public static <T> T assertStatements(SqlStatementInspector inspector, int max, Supplier<T> action) {
+        try (StatementRecorder recorder = StatementRecorder.start(inspector)) {
+            T result = action.get();
+            verify(recorder, max);
+            return result;
+        }
+    }
+
+    public static void assertStatements(SqlStatementInspector inspector, int max, Runnable action) {
+        assertStatements(inspector, max, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static void verify(StatementRecorder recorder, int max) {
+        Map<String, Integer> repeated = recorder.repeatedSelects();
+        assertThat(repeated)
+                .as("N+1 suspected, repeated statements: %s", repeated)
+                .isEmpty();
+        assertThat(recorder.count())
+                .as("statement budget %d exceeded: %s", max, recorder.getStatements())
+                .isLessThanOrEqualTo(max);
+    }
+}
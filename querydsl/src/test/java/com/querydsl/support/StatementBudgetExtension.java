@@ -0,0 +1,35 @@
+package com.querydsl.support;
+
+import com.querydsl.config.SqlStatementInspector;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+//@BeforeEach 가 끝난 뒤부터 테스트 메서드가 끝날 때까지 센다
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(StatementBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlStatementInspector inspector = SpringExtension.getApplicationContext(context).getBean(SqlStatementInspector.class);
+        context.getStore(NAMESPACE).put(context.getUniqueId(), StatementRecorder.start(inspector));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        StatementRecorder recorder = context.getStore(NAMESPACE).remove(context.getUniqueId(), StatementRecorder.class);
+        if (recorder == null) {
+            return;
+        }
+        try {
+            StatementBudget budget = context.getRequiredTestMethod().getAnnotation(StatementBudget.class);
+            if (context.getExecutionException().isEmpty()) {
+                StatementAssertions.verify(recorder, budget.max());
+            }
+        } finally {
+            recorder.close();
+        }
+    }
+}
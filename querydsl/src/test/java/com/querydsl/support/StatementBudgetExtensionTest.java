@@ -0,0 +1,99 @@
+package com.querydsl.support;
+
+import com.querydsl.dto.MemberSearchCondition;
+import com.querydsl.repository.MemberJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import org.junit.platform.testkit.engine.Events;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectMethod;
+import static org.junit.platform.testkit.engine.EventConditions.event;
+import static org.junit.platform.testkit.engine.EventConditions.finishedWithFailure;
+import static org.junit.platform.testkit.engine.EventConditions.test;
+import static org.junit.platform.testkit.engine.TestExecutionResultConditions.message;
+
+//@StatementBudget 이 붙은 테스트를 직접 실행해서 상한을 넘으면 실패하는지 확인
+class StatementBudgetExtensionTest {
+
+    static final String FIXTURE = "statementBudget.fixture";
+
+    @BeforeEach
+    public void before() {
+        System.setProperty(FIXTURE, "true");
+    }
+
+    @AfterEach
+    public void after() {
+        System.clearProperty(FIXTURE);
+    }
+
+    @Test
+    public void withinBudgetPasses() {
+        run("withinBudget").assertStatistics(stats -> stats.succeeded(1).failed(0));
+    }
+
+    @Test
+    public void overBudgetFails() {
+        Events events = run("overBudget");
+        events.assertStatistics(stats -> stats.succeeded(0).failed(1));
+        events.assertThatEvents().haveExactly(1,
+                event(test("overBudget"), finishedWithFailure(message(m -> m.contains("statement budget 1 exceeded")))));
+    }
+
+    @Test
+    public void repeatedSelectFails() {
+        Events events = run("repeatedSelect");
+        events.assertStatistics(stats -> stats.succeeded(0).failed(1));
+        events.assertThatEvents().haveExactly(1,
+                event(test("repeatedSelect"), finishedWithFailure(message(m -> m.contains("N+1 suspected")))));
+    }
+
+    private Events run(String method) {
+        return EngineTestKit.engine("junit-jupiter")
+                .selectors(selectMethod(Fixture.class, method))
+                .execute()
+                .testEvents();
+    }
+
+    //EngineTestKit 으로 실행할 때만 켜진다
+    @SpringBootTest
+    @Transactional
+    @EnabledIfSystemProperty(named = FIXTURE, matches = "true")
+    static class Fixture {
+
+        @Autowired
+        MemberJpaRepository memberJpaRepository;
+
+        @Test
+        @StatementBudget(max = 1)
+        void withinBudget() {
+            memberJpaRepository.search(condition("member1"));
+        }
+
+        @Test
+        @StatementBudget(max = 1)
+        void overBudget() {
+            memberJpaRepository.search(condition("member1"));
+            memberJpaRepository.search(condition("member2"));
+        }
+
+        @Test
+        @StatementBudget(max = 10)
+        void repeatedSelect() {
+            memberJpaRepository.search(condition("member1"));
+            memberJpaRepository.search(condition("member1"));
+        }
+
+        private static MemberSearchCondition condition(String username) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername(username);
+            return condition;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.querydsl.support;
+
+import com.querydsl.config.SqlStatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 현재 스레드에서 실행되는 SQL 을 기록한다. try-with-resources 로 사용.
+ * <pre>
+ * try (StatementRecorder recorder = StatementRecorder.start(inspector)) {
+ *     ...
+ *     recorder.getStatements();
+ * }
+ * </pre>
+ */
+public class StatementRecorder implements AutoCloseable {
+
+    private final SqlStatementInspector inspector;
+    private final Thread thread = Thread.currentThread();
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+    private final Consumer<String> listener = this::record;
+
+    private StatementRecorder(SqlStatementInspector inspector) {
+        this.inspector = inspector;
+    }
+
+    public static StatementRecorder start(SqlStatementInspector inspector) {
+        StatementRecorder recorder = new StatementRecorder(inspector);
+        inspector.addListener(recorder.listener);
+        return recorder;
+    }
+
+    private void record(String sql) {
+        if (Thread.currentThread() == thread) {
+            statements.add(sql.trim().replaceAll("\\s+", " "));
+        }
+    }
+
+    public List<String> getStatements() {
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    //같은 select 가 여러 번 나가면 지연 로딩이 행마다 실행된 것(N+1)으로 본다
+    public Map<String, Integer> repeatedSelects() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String sql : getStatements()) {
+            if (sql.regionMatches(true, 0, "select", 0, 6)) {
+                counts.merge(sql, 1, Integer::sum);
+            }
+        }
+        counts.values().removeIf(count -> count < 2);
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        inspector.removeListener(listener);
+    }
+}